@@ -0,0 +1,107 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// The graph side of bench.Workload: one snapshot of a generated graph,
+// with the queries the benchmarks run over it. Edge files are written by
+// GraphGenerator on first use into the directory named by
+// -Dgraph.bench.dir (bench by default) and reused after that. Queries are
+// drawn by name rank from a seeded Random, so every ordering of the same
+// graph answers the same ones and the timings compare cache behaviour
+// alone.
+public class GraphWorkload implements bench.Workload
+{
+	static final long SEED = 42;
+	static final int QUERIES = 200;
+
+	private final String file;
+	private final CsrGraph graph;
+	private final int[] sources = new int[QUERIES];
+	private final int[] targets = new int[QUERIES];
+	private final Reachability reach;
+	private final ForkJoinPool pool;
+	private final DeltaStepping delta;
+
+	public GraphWorkload(String kind, int size, String order) throws IOException
+	{
+		file = file(kind, size);
+		CsrGraph g = GraphLoader.load(file, ForkJoinPool.commonPool());
+		graph = order.equals("name") ? g : VertexOrder.apply(g, order, null, null);
+		Random r = new Random(SEED);
+		for (int i = 0; i < QUERIES; i++) {
+			sources[i] = graph.byName(r.nextInt(graph.vertexCount()));
+			targets[i] = graph.byName(r.nextInt(graph.vertexCount()));
+		}
+		reach = new Reachability(graph);
+		pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		delta = new DeltaStepping(pool);
+	}
+
+	// The edge file of the kind with about n vertices, generated if missing
+	private static synchronized String file(String kind, int n) throws IOException
+	{
+		File f = new File(System.getProperty("graph.bench.dir", "bench"), kind + "-" + n + ".txt");
+		if (!f.exists()) {
+			f.getAbsoluteFile().getParentFile().mkdirs();
+			File part = new File(f.getPath() + ".part");
+			long started = System.nanoTime();
+			long lines = GraphGenerator.write(kind, n, SEED, part.getPath());
+			if (!part.renameTo(f))
+				throw new IOException("Cannot rename " + part + " to " + f);
+			System.err.printf("Generated %s: %d lines in %.1f s%n", f, lines,
+					(System.nanoTime() - started) / 1e9);
+		}
+		return f.getPath();
+	}
+
+	public int queries()
+	{
+		return QUERIES;
+	}
+
+	public int sssp(int i)
+	{
+		return graph.weighted(sources[i]).predecessor(targets[i]);
+	}
+
+	public int ssspDelta(int i)
+	{
+		return delta.tree(graph, sources[i]).predecessor(targets[i]);
+	}
+
+	public int p2pDijkstra(int i)
+	{
+		return graph.shortestPath(sources[i], targets[i]).getSettled();
+	}
+
+	public int p2pBidir(int i)
+	{
+		return graph.bidirectional(sources[i], targets[i]).getSettled();
+	}
+
+	public boolean reaches(int i)
+	{
+		return reach.reaches(sources[i], targets[i]);
+	}
+
+	public Object load() throws IOException
+	{
+		return GraphLoader.load(file, ForkJoinPool.commonPool());
+	}
+
+	public Object reorder(String method)
+	{
+		return VertexOrder.apply(graph, method, null, null);
+	}
+
+	public Object reachIndex()
+	{
+		return new Reachability(graph);
+	}
+
+	public void close()
+	{
+		pool.shutdown();
+	}
+}
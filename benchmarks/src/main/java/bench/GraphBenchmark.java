@@ -0,0 +1,124 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+// JMH benchmarks of the queries over a snapshot of each generated graph:
+//   sssp         whole shortest path trees by Dijkstra
+//   ssspDelta    the same trees by parallel delta-stepping
+//   p2pDijkstra  point-to-point queries, unidirectional search
+//   p2pBidir     point-to-point queries, bidirectional search
+//   p2pParallel  bidirectional queries from one thread per processor
+//   reachQuery   lookups on the reachability index
+// The order parameter relabels the snapshot by a VertexOrder method first.
+// Sample time mode gives the mean and the latency percentiles; -prof gc
+// adds the bytes allocated per operation and the collections.
+// Usage: mvn -Pbenchmarks package
+//        java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff results.json
+//        [-p kind=road -p size=1000000 -p order=name,rcm,bfs] [GraphBenchmark.p2p]
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark
+{
+	@Param({ "grid", "road", "powerlaw", "dense" })
+	public String kind;
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	@Param({ "name" })
+	public String order;
+
+	Workload graph;
+
+	@Setup(Level.Trial)
+	public void setup() throws ReflectiveOperationException
+	{
+		graph = Workload.open(kind, size, order);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		graph.close();
+	}
+
+	// A thread's place in the query list. Threads start at different
+	// queries so that they do not run in step
+	@State(Scope.Thread)
+	public static class Cursor
+	{
+		int next;
+		int queries;
+
+		@Setup(Level.Trial)
+		public void setup(GraphBenchmark b, ThreadParams t)
+		{
+			queries = b.graph.queries();
+			next = t.getThreadIndex() * queries / t.getThreadCount();
+		}
+
+		int next()
+		{
+			int i = next;
+			next = i + 1 == queries ? 0 : i + 1;
+			return i;
+		}
+	}
+
+	@Benchmark
+	public int sssp(Cursor c)
+	{
+		return graph.sssp(c.next());
+	}
+
+	@Benchmark
+	public int ssspDelta(Cursor c)
+	{
+		return graph.ssspDelta(c.next());
+	}
+
+	@Benchmark
+	public int p2pDijkstra(Cursor c)
+	{
+		return graph.p2pDijkstra(c.next());
+	}
+
+	@Benchmark
+	public int p2pBidir(Cursor c)
+	{
+		return graph.p2pBidir(c.next());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int p2pParallel(Cursor c)
+	{
+		return graph.p2pBidir(c.next());
+	}
+
+	@Benchmark
+	public boolean reachQuery(Cursor c)
+	{
+		return graph.reaches(c.next());
+	}
+}
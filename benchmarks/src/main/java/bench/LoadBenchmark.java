@@ -0,0 +1,76 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// JMH benchmarks of building a snapshot and its indexes from each generated
+// graph, one timed run per iteration:
+//   load        loading the edge file into a CSR snapshot
+//   reorder     relabeling the snapshot by the VertexOrder method given as
+//               the method parameter
+//   reachIndex  building the reachability index
+// Usage as for GraphBenchmark, e.g.
+//        java -jar benchmarks/target/benchmarks.jar LoadBenchmark -prof gc -rf json
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadBenchmark
+{
+	@Param({ "grid", "road", "powerlaw", "dense" })
+	public String kind;
+
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+
+	@Param({ "rcm" })
+	public String method;
+
+	Workload graph;
+
+	@Setup(Level.Trial)
+	public void setup() throws ReflectiveOperationException
+	{
+		graph = Workload.open(kind, size, "name");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		graph.close();
+	}
+
+	@Benchmark
+	public Object load() throws IOException
+	{
+		return graph.load();
+	}
+
+	@Benchmark
+	public Object reorder()
+	{
+		return graph.reorder(method);
+	}
+
+	@Benchmark
+	public Object reachIndex()
+	{
+		return graph.reachIndex();
+	}
+}
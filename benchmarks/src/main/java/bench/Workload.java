@@ -0,0 +1,40 @@
+package bench;
+
+import java.io.IOException;
+
+// The graph code lives in the unnamed package. JMH rejects benchmark
+// classes there, and a named package cannot import from it, so the
+// benchmarks reach the graph through this interface. GraphWorkload in the
+// unnamed package implements it; open looks that class up by name once per
+// trial, and after that every call is an ordinary interface call.
+public interface Workload
+{
+	/** Loads the generated graph of the kind with about size vertices, relabeled by order ("name" keeps the loaded ids). */
+	static Workload open(String kind, int size, String order) throws ReflectiveOperationException
+	{
+		return (Workload) Class.forName("GraphWorkload")
+				.getConstructor(String.class, int.class, String.class)
+				.newInstance(kind, size, order);
+	}
+
+	/** Number of seeded queries; the query methods take an index below it. */
+	int queries();
+
+	int sssp(int query);
+
+	int ssspDelta(int query);
+
+	int p2pDijkstra(int query);
+
+	int p2pBidir(int query);
+
+	boolean reaches(int query);
+
+	Object load() throws IOException;
+
+	Object reorder(String method);
+
+	Object reachIndex();
+
+	void close();
+}
@@ -0,0 +1,230 @@
+import java.util.Arrays;
+
+// Growable edge list of one vertex in primitive arrays: for every edge the
+// id of the vertex at the other end and its weight, at a slot that stays put
+// until the list is compacted, and a bitset of the slots that are down.
+// A removed edge leaves a hole (end -1) so the others keep their order; the
+// holes are squeezed out once they make up half of the slots.
+// Once a vertex has INDEX_DEGREE edges, an open-addressing table (linear
+// probing) from the other end's id to the first slot with that end makes
+// finding an edge O(1). Parallel edges to the same end are chained through
+// same[] in insertion order, so first/next visit them the way a scan would.
+final class Adjacency
+{
+	static final int INDEX_DEGREE = 16;   // edges before the index is built
+
+	private static final int[] NO_INTS = new int[0];
+	private static final float[] NO_FLOATS = new float[0];
+	private static final long[] NO_LONGS = new long[0];
+
+	private int[] ends = NO_INTS;
+	private float[] weights = NO_FLOATS;
+	private long[] down = NO_LONGS;      // bit per slot
+	private int slots;      // slots in use, holes included
+	private int removed;    // holes
+
+	private int[] index;    // end -> first slot, -1 free; null below INDEX_DEGREE
+	private int keys;       // distinct ends in the index
+	private int[] same;     // slot -> next slot with the same end, -1 at the last
+
+	/** Slots to iterate over; end(slot) is -1 for a removed edge. */
+	public int slots()
+	{
+		return slots;
+	}
+
+	/** No. of edges. */
+	public int size()
+	{
+		return slots - removed;
+	}
+
+	public int end(int slot)
+	{
+		return ends[slot];
+	}
+
+	public float weight(int slot)
+	{
+		return weights[slot];
+	}
+
+	public boolean isDown(int slot)
+	{
+		return CsrGraph.get(down, slot);
+	}
+
+	public void setDown(int slot, boolean d)
+	{
+		if (d)
+			CsrGraph.set(down, slot);
+		else
+			CsrGraph.clear(down, slot);
+	}
+
+	/** First slot of an edge to end, or -1. */
+	public int first(int end)
+	{
+		if (index != null) {
+			int mask = index.length - 1;
+			for (int i = hash(end) & mask; index[i] >= 0; i = (i + 1) & mask) {
+				if (ends[index[i]] == end)
+					return index[i];
+			}
+			return -1;
+		}
+		for (int s = 0; s < slots; s++) {
+			if (ends[s] == end)
+				return s;
+		}
+		return -1;
+	}
+
+	/** Next slot after slot of an edge to the same end, or -1. */
+	public int next(int slot)
+	{
+		if (index != null)
+			return same[slot];
+		int end = ends[slot];
+		for (int s = slot + 1; s < slots; s++) {
+			if (ends[s] == end)
+				return s;
+		}
+		return -1;
+	}
+
+	/** Appends an up edge to end; returns its slot. */
+	public int add(int end, float weight)
+	{
+		if (slots == ends.length)
+			grow();
+		int slot = slots++;
+		ends[slot] = end;
+		weights[slot] = weight;
+		CsrGraph.clear(down, slot);
+		if (index != null) {
+			same[slot] = -1;
+			link(slot);
+		} else if (size() >= INDEX_DEGREE) {
+			rebuildIndex();
+		}
+		return slot;
+	}
+
+	/** Removes the edge at slot. */
+	public void remove(int slot)
+	{
+		int end = ends[slot];
+		if (index != null) {
+			int mask = index.length - 1;
+			int i = hash(end) & mask;
+			while (ends[index[i]] != end)
+				i = (i + 1) & mask;
+			if (index[i] == slot) {
+				if (same[slot] >= 0)
+					index[i] = same[slot];
+				else
+					unindex(i);
+			} else {
+				int p = index[i];
+				while (same[p] != slot)
+					p = same[p];
+				same[p] = same[slot];
+			}
+		}
+		ends[slot] = -1;
+		removed++;
+		if (removed > 8 && 2 * removed > slots)
+			compact();
+	}
+
+	private void grow()
+	{
+		int size = Math.max(4, slots + (slots >> 1));
+		ends = Arrays.copyOf(ends, size);
+		weights = Arrays.copyOf(weights, size);
+		down = Arrays.copyOf(down, CsrGraph.words(size));
+		if (same != null)
+			same = Arrays.copyOf(same, size);
+	}
+
+	// Squeezes the holes out, keeping the order of the edges
+	private void compact()
+	{
+		int to = 0;
+		for (int s = 0; s < slots; s++) {
+			if (ends[s] < 0)
+				continue;
+			ends[to] = ends[s];
+			weights[to] = weights[s];
+			setDown(to, CsrGraph.get(down, s));
+			to++;
+		}
+		slots = to;
+		removed = 0;
+		if (index != null || slots >= INDEX_DEGREE)
+			rebuildIndex();
+	}
+
+	private void rebuildIndex()
+	{
+		int cap = Integer.highestOneBit(Math.max(4 * size(), 16) - 1) << 1;
+		index = new int[cap];
+		Arrays.fill(index, -1);
+		keys = 0;
+		same = new int[ends.length];
+		for (int s = 0; s < slots; s++) {
+			if (ends[s] >= 0) {
+				same[s] = -1;
+				link(s);
+			}
+		}
+	}
+
+	// Adds slot at the end of the chain of its end, or as a new key
+	private void link(int slot)
+	{
+		int end = ends[slot];
+		int mask = index.length - 1;
+		int i = hash(end) & mask;
+		for (; index[i] >= 0; i = (i + 1) & mask) {
+			if (ends[index[i]] == end) {
+				int p = index[i];
+				while (same[p] >= 0)
+					p = same[p];
+				same[p] = slot;
+				return;
+			}
+		}
+		index[i] = slot;
+		if (2 * ++keys > index.length)
+			rebuildIndex();
+	}
+
+	// Frees index cell i, moving later entries of the probe run back so
+	// that every key stays reachable from its home cell
+	private void unindex(int i)
+	{
+		int mask = index.length - 1;
+		int j = i;
+		while (true) {
+			j = (j + 1) & mask;
+			if (index[j] < 0)
+				break;
+			int home = hash(ends[index[j]]) & mask;
+			// ***move j back to i unless its home lies cyclically in (i, j]
+			if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+				index[i] = index[j];
+				i = j;
+			}
+		}
+		index[i] = -1;
+		keys--;
+	}
+
+	private static int hash(int end)
+	{
+		int h = end * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,346 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// Reads commands line by line and runs them on a graph, writing every result
+// to one writer. A plain loop drives it, so a session or a piped script can
+// be any length. Interactive use prompts before each command and flushes
+// after it; batch use does neither, so a script of millions of commands goes
+// through one buffered reader and one buffered writer.
+// Under a GraphServer the commands that change the graph are handed to the
+// server's single writer, and the queries run on the snapshot it published
+// last, without waiting for the writer.
+// Every command is timed into the latency histogram of its type in Stats,
+// along with the bytes its thread allocated, unless stats are compiled out.
+// ******************COMMANDS*******************************************************************
+// path s d | addedge t h w | deleteedge t h | edgedown t h | edgeup t h
+// vertexdown v | vertexup v | print | reachable | matrix s1,s2 t1,t2
+// hot [v] | cache | stats [reset] | save f | load f | checkpoint
+// batch ... end: the addedge/deleteedge/edgedown/edgeup/vertexdown/vertexup
+// lines in between are collected and applied together when end is read
+final class CommandProcessor
+{
+	// Printed as two lines, each with the platform line separator
+	static final String PROMPT = "Enter query to the graph with one of the below provided options  ";
+	static final String PROMPT_COMMANDS = "(path/addedge/deleteedge/edgedown/edgeup/vertexdown/vertexup/print/reachable/matrix/hot/cache/stats/save/load/checkpoint/batch/end) "
+			+ "with valid arguments ";
+
+	private final Graph graph;
+	private final GraphServer server;              // null on the console
+	private final Token[] tokens =                 // reused, so one processor per thread
+			{ new Token(), new Token(), new Token(), new Token() };
+	private MutationBatch batch;                   // open batch block, null outside one
+
+	public CommandProcessor(Graph graph) {
+		this(graph, null);
+	}
+
+	public CommandProcessor(Graph graph, GraphServer server) {
+		this.graph = graph;
+		this.server = server;
+	}
+
+	/**
+	 * Runs every command read from in until it ends. Returns the no. of
+	 * commands read.
+	 */
+	public long run(BufferedReader in, PrintWriter out, boolean interactive)
+			throws IOException
+	{
+		long commands = 0;
+		while (true) {
+			if (interactive) {
+				out.println(PROMPT);
+				out.println(PROMPT_COMMANDS);
+				out.flush();
+			}
+			String line = in.readLine();
+			if (line == null)
+				break;
+			execute(line, out);
+			commands++;
+			if (interactive)
+				out.flush();
+		}
+		out.flush();
+		return commands;
+	}
+
+	/**
+	 * Runs one command line. Blank lines and unknown commands are ignored;
+	 * errors are reported on System.err, or to out under a server.
+	 */
+	public void execute(String line, PrintWriter out)
+	{
+		int count = split(line, tokens);
+		if (count == 0)
+			return;
+		final String command = command(tokens[0]);
+		final CharSequence source = count > 1 ? tokens[1] : "";
+		final CharSequence dest = count > 2 ? tokens[2] : "";
+		int stat = Stats.ENABLED ? Stats.commandIndex(statName(command)) : -1;
+		long started = stat >= 0 ? System.nanoTime() : 0;
+		long bytes = stat >= 0 ? Stats.allocatedBytes() : 0;
+		try {
+			final float time = count > 3 ? Float.parseFloat(tokens[3].toString()) : 0;
+			if (batch != null || command.equals("batch")) {
+				batchCommand(command, source, dest, time, out);
+				return;
+			}
+			if (server != null && isChange(command, count))
+				server.change(() -> dispatch(command, source, dest, time, out));
+			else
+				dispatch(command, source, dest, time, out);
+		} catch (GraphException | NumberFormatException e) {
+			error(e, out);
+		} catch (IOException e) {
+			error(e, out);
+		} finally {
+			if (stat >= 0)
+				Stats.command(stat, System.nanoTime() - started,
+						bytes < 0 ? -1 : Stats.allocatedBytes() - bytes);
+		}
+	}
+
+	// Histogram a command line is timed into: the lines of a batch block
+	// are timed together, as "batch", when end applies them
+	private String statName(String command)
+	{
+		if (batch != null || command.equals("batch"))
+			return command.equals("end") ? "batch" : null;
+		return command;
+	}
+
+	// Inside a batch block: collects the changes and applies them on end
+	private void batchCommand(String command, CharSequence source, CharSequence dest,
+			float time, PrintWriter out) throws IOException
+	{
+		switch (command) {
+		case "batch":
+			if (batch != null)
+				throw new GraphException("Already in a batch");
+			batch = new MutationBatch();
+			break;
+		case "end":
+			final MutationBatch b = batch;
+			batch = null;
+			if (server != null)
+				server.change(() -> graph.apply(b, out));
+			else
+				graph.apply(b, out);
+			break;
+		case "addedge":
+			batch.addEdge(source.toString(), dest.toString(), time);
+			break;
+		case "deleteedge":
+			batch.deleteEdge(source.toString(), dest.toString());
+			break;
+		case "vertexdown":
+			batch.vertexDown(source.toString());
+			break;
+		case "vertexup":
+			batch.vertexUp(source.toString());
+			break;
+		case "edgedown":
+			batch.edgeDown(source.toString(), dest.toString());
+			break;
+		case "edgeup":
+			batch.edgeUp(source.toString(), dest.toString());
+			break;
+		default:
+			throw new GraphException("Only changes can be batched: " + command);
+		}
+	}
+
+	// Errors go to System.err on the console and back to the client under a
+	// server
+	private void error(Exception e, PrintWriter out)
+	{
+		if (server != null) {
+			out.println(e);
+		} else {
+			out.flush();
+			System.err.println(e);
+		}
+	}
+
+	// Names are passed as views into the command line: lookups resolve them
+	// in place, and a view stays valid while server.change waits for the
+	// writer. Only what is kept or opened (hot sources, matrix lists, file
+	// names) is turned into a String
+	private void dispatch(String command, CharSequence source, CharSequence dest, float time,
+			PrintWriter out) throws IOException
+	{
+		Graph g = graph;
+		switch (command) {
+		case "path":
+			if (server != null)
+				g.path(source, dest, out);
+			else
+				g.path(g.snapshot(), source, dest, out);
+			break;
+		case "addedge":
+			g.addedge(source, dest, time);
+			break;
+		case "deleteedge":
+			g.deleteedge(source, dest, out);
+			break;
+		case "vertexdown":
+			g.vertexdown(source, out);
+			break;
+		case "vertexup":
+			g.vertexup(source, out);
+			break;
+		case "edgedown":
+			g.edgedown(source, dest, out);
+			break;
+		case "edgeup":
+			g.edgeup(source, dest, out);
+			break;
+		case "reachable":
+			g.reachable_vertices(snapshot(), out);
+			break;
+		case "print":
+			snapshot().printGraph(out);
+			break;
+		case "matrix":
+			g.matrix(snapshot(), source.toString(), dest.toString(), out);
+			break;
+		case "hot":
+			g.hot(source.toString(), out);
+			break;
+		case "cache":
+			g.cache(out);
+			break;
+		case "stats":
+			if ("reset".contentEquals(source))
+				Stats.reset();
+			else
+				Stats.print(out);
+			break;
+		case "save":
+			g.save(source.toString());
+			break;
+		case "load":
+			g.load(source.toString());
+			break;
+		case "checkpoint":
+			g.checkpoint(out);
+			break;
+		default:
+			break;
+		}
+	}
+
+	// Snapshot queries run on: the published one under a server
+	private CsrGraph snapshot()
+	{
+		return server != null ? graph.published() : graph.snapshot();
+	}
+
+	/** True for the commands that change the graph or its settings. */
+	static boolean isChange(String command, int tokens)
+	{
+		switch (command) {
+		case "addedge":
+		case "deleteedge":
+		case "vertexdown":
+		case "vertexup":
+		case "edgedown":
+		case "edgeup":
+		case "load":
+		case "save":
+		case "checkpoint":
+			return true;
+		case "hot":
+			return tokens > 1;
+		default:
+			return false;
+		}
+	}
+
+	// Every command word, so a command is matched to one of these constants
+	// without making a String of its token
+	private static final String[] COMMAND_WORDS = { "path", "addedge", "deleteedge",
+			"edgedown", "edgeup", "vertexdown", "vertexup", "print", "reachable", "matrix",
+			"hot", "cache", "stats", "save", "load", "checkpoint", "batch", "end" };
+
+	// The command word of token; an unknown one is copied
+	private static String command(Token token)
+	{
+		for (String word : COMMAND_WORDS) {
+			if (token.is(word))
+				return word;
+		}
+		return token.toString();
+	}
+
+	// One token of a command line as offsets into it, so that names can be
+	// looked up without copying them out
+	static final class Token implements CharSequence
+	{
+		private String line = "";
+		private int start;
+		private int end;
+
+		void set(String line, int start, int end)
+		{
+			this.line = line;
+			this.start = start;
+			this.end = end;
+		}
+
+		boolean is(String word)
+		{
+			return word.length() == end - start && line.startsWith(word, start);
+		}
+
+		public int length()
+		{
+			return end - start;
+		}
+
+		public char charAt(int i)
+		{
+			return line.charAt(start + i);
+		}
+
+		public CharSequence subSequence(int from, int to)
+		{
+			return line.subSequence(start + from, start + to);
+		}
+
+		public String toString()
+		{
+			return line.substring(start, end);
+		}
+	}
+
+	/**
+	 * Splits line on the whitespace StringTokenizer uses into at most
+	 * tokens.length tokens; anything after that is ignored. Returns the no.
+	 * of tokens found.
+	 */
+	static int split(String line, Token[] tokens)
+	{
+		int count = 0;
+		int i = 0;
+		int n = line.length();
+		while (count < tokens.length) {
+			while (i < n && isSpace(line.charAt(i)))
+				i++;
+			if (i == n)
+				break;
+			int start = i;
+			while (i < n && !isSpace(line.charAt(i)))
+				i++;
+			tokens[count++].set(line, start, i);
+		}
+		return count;
+	}
+
+	private static boolean isSpace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+}
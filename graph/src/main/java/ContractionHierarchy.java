@@ -0,0 +1,411 @@
+import java.util.Arrays;
+
+// Contraction Hierarchies (CH) over one CsrGraph snapshot.
+// Preprocessing contracts the vertices one at a time in order of importance.
+// Contracting v removes it from the remaining graph and adds a shortcut
+// u -> x (remembering v as its middle vertex) for every path u -> v -> x that
+// no other path of at most the same length replaces (a "witness").
+// A query then runs Dijkstra from both ends, each side only following edges
+// towards more important vertices, which settles a few hundred vertices even
+// on large graphs. Shortcuts are unpacked back into original edges.
+// The hierarchy covers the up vertices and up edges of its snapshot; a new
+// snapshot needs a new hierarchy.
+final class ContractionHierarchy
+{
+	private static final int WITNESS_LIMIT = 500;  // settled vertices per witness search
+	private static final int ESTIMATE_LIMIT = 40;  // same, when only rating a vertex
+
+	private final CsrGraph graph;
+	private final int[] rank;          // contraction order, higher is more important
+
+	private final int[] upOffsets;     // edges v -> x with rank[x] > rank[v]
+	private final int[] upTargets;
+	private final float[] upWeights;
+	private final int[] upMiddles;     // middle vertex of a shortcut, -1 for an original edge
+	private final int[] downOffsets;   // edges u -> v with rank[u] > rank[v], held at v
+	private final int[] downSources;
+	private final float[] downWeights;
+	private final int[] downMiddles;
+	private int shortcuts;
+	private int[] targetMark;          // = markStamp for the heads of the vertex being rated
+	private int markStamp;
+
+	// Growable edge lists of the graph that is still being contracted
+	private static final class Arcs
+	{
+		int[] to = new int[4];
+		float[] weight = new float[4];
+		int[] middle = new int[4];     // -1 for an original edge
+		int size;
+
+		int indexOf(int v)
+		{
+			for (int i = 0; i < size; i++) {
+				if (to[i] == v)
+					return i;
+			}
+			return -1;
+		}
+
+		void remove(int v)
+		{
+			int i = indexOf(v);
+			if (i >= 0) {
+				to[i] = to[--size];
+				weight[i] = weight[size];
+				middle[i] = middle[size];
+			}
+		}
+
+		// Adds v, or lowers the weight of an existing arc to v, as an edge or
+		// a shortcut over mid. Returns true if the arc is new or got shorter
+		boolean put(int v, float w, int mid)
+		{
+			int i = indexOf(v);
+			if (i >= 0) {
+				if (w >= weight[i])
+					return false;
+				weight[i] = w;
+				middle[i] = mid;
+				return true;
+			}
+			if (size == to.length) {
+				to = Arrays.copyOf(to, size * 2);
+				weight = Arrays.copyOf(weight, size * 2);
+				middle = Arrays.copyOf(middle, size * 2);
+			}
+			to[size] = v;
+			weight[size] = w;
+			middle[size++] = mid;
+			return true;
+		}
+	}
+
+	public ContractionHierarchy(CsrGraph g) {
+		graph = g;
+		int n = g.vertexCount();
+		rank = new int[n];
+		targetMark = new int[n];
+
+		Arcs[] out = new Arcs[n];
+		Arcs[] in = new Arcs[n];
+		for (int v = 0; v < n; v++) {
+			out[v] = new Arcs();
+			in[v] = new Arcs();
+		}
+		for (int v = 0; v < n; v++) {
+			if (g.isVertexDown(v))
+				continue;
+			for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+				int w = g.target(e);
+				if (w == v || g.isEdgeDown(e) || g.isVertexDown(w))
+					continue;
+				out[v].put(w, g.weight(e), -1);
+				in[w].put(v, g.weight(e), -1);
+			}
+		}
+
+		// ***when v is contracted its arcs all lead to vertices contracted
+		// ***later, which are the arcs going up the hierarchy
+		Arcs[] upOut = new Arcs[n];
+		Arcs[] downIn = new Arcs[n];
+		int[] deletedNeighbours = new int[n];
+
+		DaryHeap order = new DaryHeap(n);
+		for (int v = 0; v < n; v++) {
+			order.insert(v, priority(v, out, in, deletedNeighbours, false));
+		}
+
+		int next = 0;
+		while (!order.isEmpty()) {
+			int v = order.pop();
+			// ***lazy update: re-rate v and put it back if it is no longer the least important
+			double p = priority(v, out, in, deletedNeighbours, false);
+			if (!order.isEmpty() && p > order.peekKey()) {
+				order.insert(v, p);
+				continue;
+			}
+			priority(v, out, in, deletedNeighbours, true);
+			rank[v] = next++;
+			upOut[v] = out[v];
+			downIn[v] = in[v];
+			// ***unlink v, so the remaining graph only holds uncontracted vertices
+			for (int i = 0; i < out[v].size; i++) {
+				int x = out[v].to[i];
+				in[x].remove(v);
+				deletedNeighbours[x]++;
+			}
+			for (int i = 0; i < in[v].size; i++) {
+				int u = in[v].to[i];
+				out[u].remove(v);
+				deletedNeighbours[u]++;
+			}
+			// ***the neighbours lost an arc and may have gained shortcuts
+			for (int i = 0; i < out[v].size; i++) {
+				int x = out[v].to[i];
+				order.changeKey(x, priority(x, out, in, deletedNeighbours, false));
+			}
+			for (int i = 0; i < in[v].size; i++) {
+				int u = in[v].to[i];
+				order.changeKey(u, priority(u, out, in, deletedNeighbours, false));
+			}
+		}
+
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			upOffsets[v + 1] = upOffsets[v] + countUp(v, upOut[v]);
+			downOffsets[v + 1] = downOffsets[v] + countUp(v, downIn[v]);
+		}
+		upTargets = new int[upOffsets[n]];
+		upWeights = new float[upOffsets[n]];
+		upMiddles = new int[upOffsets[n]];
+		downSources = new int[downOffsets[n]];
+		downWeights = new float[downOffsets[n]];
+		downMiddles = new int[downOffsets[n]];
+		for (int v = 0; v < n; v++) {
+			copyUp(v, upOut[v], upOffsets[v], upTargets, upWeights, upMiddles);
+			copyUp(v, downIn[v], downOffsets[v], downSources, downWeights, downMiddles);
+		}
+	}
+
+	private int countUp(int v, Arcs a)
+	{
+		int c = 0;
+		for (int i = 0; i < a.size; i++) {
+			if (rank[a.to[i]] > rank[v])
+				c++;
+		}
+		return c;
+	}
+
+	private void copyUp(int v, Arcs a, int at, int[] to, float[] weight, int[] middle)
+	{
+		for (int i = 0; i < a.size; i++) {
+			if (rank[a.to[i]] > rank[v]) {
+				to[at] = a.to[i];
+				weight[at] = a.weight[i];
+				middle[at++] = a.middle[i];
+			}
+		}
+	}
+
+	// Importance of v: shortcuts its contraction needs minus the arcs it
+	// removes, plus the no. of neighbours already contracted. With contract
+	// set the shortcuts are actually added to the remaining graph
+	private double priority(int v, Arcs[] out, Arcs[] in,
+			int[] deletedNeighbours, boolean contract)
+	{
+		int added = 0;
+		Arcs vin = in[v];
+		Arcs vout = out[v];
+		markStamp++;
+		for (int j = 0; j < vout.size; j++)
+			targetMark[vout.to[j]] = markStamp;
+		for (int i = 0; i < vin.size; i++) {
+			int u = vin.to[i];
+			float wu = vin.weight[i];
+			float limit = 0;
+			int targets = 0;
+			for (int j = 0; j < vout.size; j++) {
+				if (vout.to[j] != u) {
+					limit = Math.max(limit, wu + vout.weight[j]);
+					targets++;
+				}
+			}
+			SearchScratch s = SearchScratch.acquire(out.length, false);
+			try {
+				witnessSearch(s, u, v, limit, targets,
+						contract ? WITNESS_LIMIT : ESTIMATE_LIMIT, out);
+				for (int j = 0; j < vout.size; j++) {
+					int x = vout.to[j];
+					if (x == u)
+						continue;
+					float via = wu + vout.weight[j];
+					if (s.dist(x) <= via)
+						continue;
+					added++;
+					if (contract && out[u].put(x, via, v)) {
+						in[x].put(u, via, v);
+						shortcuts++;
+					}
+				}
+			} finally {
+				s.release();
+			}
+		}
+		return added - vin.size - vout.size + deletedNeighbours[v];
+	}
+
+	// Bounded Dijkstra from u over the uncontracted graph without v. It stops
+	// once all the marked heads of v are settled, the distance passes limit
+	// or maxSettled vertices are settled
+	private void witnessSearch(SearchScratch s, int u, int v, float limit,
+			int targets, int maxSettled, Arcs[] out)
+	{
+		DaryHeap q = s.heap;
+		s.set(u, 0, -1);
+		q.insert(u, 0);
+		int settled = 0;
+		while (!q.isEmpty() && settled++ < maxSettled) {
+			int a = q.pop();
+			float da = s.dist(a);
+			if (da > limit)
+				break;
+			if (targetMark[a] == markStamp && a != u && --targets == 0)
+				break;
+			Arcs arcs = out[a];
+			if (Stats.ENABLED)
+				s.scanned += arcs.size;
+			for (int i = 0; i < arcs.size; i++) {
+				int b = arcs.to[i];
+				if (b == v)
+					continue;
+				float nd = da + arcs.weight[i];
+				if (nd < s.dist(b)) {
+					s.set(b, nd, a);
+					q.offer(b, nd);
+				}
+			}
+		}
+	}
+
+	// Middle vertex of the hierarchy edge u -> x, -1 if it is an original
+	// edge. The edge is held at whichever end was contracted first
+	private int middle(int u, int x)
+	{
+		if (rank[x] > rank[u]) {
+			for (int i = upOffsets[u]; i < upOffsets[u + 1]; i++) {
+				if (upTargets[i] == x)
+					return upMiddles[i];
+			}
+		} else {
+			for (int i = downOffsets[x]; i < downOffsets[x + 1]; i++) {
+				if (downSources[i] == u)
+					return downMiddles[i];
+			}
+		}
+		return -1;
+	}
+
+	public CsrGraph getGraph()
+	{
+		return graph;
+	}
+
+	public int getShortcuts()
+	{
+		return shortcuts;
+	}
+
+	/**
+	 * Shortest path from source to target. Both searches only climb the
+	 * hierarchy; a side stops once its queue top reaches the best distance
+	 * found where the two searches meet.
+	 */
+	public ShortestPathResult query(int source, int target)
+	{
+		CsrGraph g = graph;
+		if (g.isVertexDown(source) || g.isVertexDown(target))
+			return ShortestPathResult.unreachable(g.name(source), g.name(target), 0);
+		if (source == target)
+			return g.pathOf(new int[] { source }, 1);
+
+		int n = g.vertexCount();
+		SearchScratch f = SearchScratch.acquire(n, true);
+		SearchScratch b = SearchScratch.acquire(n, true);
+		try {
+			f.set(source, 0, -1);
+			f.heap.insert(source, 0);
+			b.set(target, 0, -1);
+			b.heap.insert(target, 0);
+			double mu = Double.POSITIVE_INFINITY;
+			int meet = -1;
+			int settled = 0;
+
+			while (f.heap.peekKey() < mu || b.heap.peekKey() < mu) {
+				boolean forward = f.heap.peekKey() <= b.heap.peekKey();
+				SearchScratch s = forward ? f : b;
+				SearchScratch other = forward ? b : f;
+				int[] offsets = forward ? upOffsets : downOffsets;
+				int[] to = forward ? upTargets : downSources;
+				float[] weight = forward ? upWeights : downWeights;
+
+				int v = s.heap.pop();
+				settled++;
+				float dv = s.dist(v);
+				if (other.reached(v) && dv + other.dist(v) < mu) {
+					mu = dv + other.dist(v);
+					meet = v;
+				}
+				if (Stats.ENABLED)
+					s.scanned += offsets[v + 1] - offsets[v];
+				for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+					int w = to[i];
+					float nd = dv + weight[i];
+					if (nd < s.dist(w)) {
+						s.set(w, nd, v);
+						s.heap.offer(w, nd);
+					}
+				}
+			}
+			if (meet < 0)
+				return ShortestPathResult.unreachable(g.name(source), g.name(target), settled);
+
+			// ***hierarchy path source..meet..target, with shortcuts packed
+			int len = 0;
+			for (int v = meet; v != -1; v = f.prev(v))
+				len++;
+			for (int v = b.prev(meet); v != -1; v = b.prev(v))
+				len++;
+			int[] packed = new int[len];
+			int i = 0;
+			for (int v = meet; v != -1; v = f.prev(v))
+				packed[i++] = v;
+			CsrGraph.reverse(packed, 0, i);
+			for (int v = b.prev(meet); v != -1; v = b.prev(v))
+				packed[i++] = v;
+			return g.pathOf(unpack(packed), settled);
+		} finally {
+			b.release();
+			f.release();
+		}
+	}
+
+	// Replaces every shortcut on the path with the vertices it stands for
+	private int[] unpack(int[] packed)
+	{
+		int[] path = new int[packed.length];
+		int len = 0;
+		path[len++] = packed[0];
+		int[] stack = new int[16];
+		for (int i = 0; i + 1 < packed.length; i++) {
+			// ***depth-first over the halves of a shortcut, left half on top
+			int top = 0;
+			stack[top++] = packed[i];
+			stack[top++] = packed[i + 1];
+			while (top > 0) {
+				int x = stack[--top];
+				int u = stack[--top];
+				int mid = middle(u, x);
+				if (mid < 0) {
+					path = ensure(path, len + 1);
+					path[len++] = x;
+				} else {
+					if (top + 4 > stack.length)
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					stack[top++] = mid;
+					stack[top++] = x;
+					stack[top++] = u;
+					stack[top++] = mid;
+				}
+			}
+		}
+		return Arrays.copyOf(path, len);
+	}
+
+	private static int[] ensure(int[] a, int size)
+	{
+		return size <= a.length ? a : Arrays.copyOf(a, Math.max(size, a.length * 2));
+	}
+}
@@ -0,0 +1,114 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.StringTokenizer;
+
+// Straight-line distance heuristic built from vertex coordinates, either
+// planar (euclidean) or latitude/longitude in degrees (haversine).
+// Edge weights are traverse times, not lengths, so the straight-line distance
+// is scaled by the smallest time per unit of length over all edges. That
+// keeps estimates admissible and consistent whatever the units are, but
+// only when every vertex has coordinates: an edge to or from a vertex
+// without them has no length to bound its time by, and a path through such
+// vertices may be far faster than the scale allows. So unless coordinates
+// cover the whole graph, every estimate is 0 and A* searches like Dijkstra.
+final class CoordinateHeuristic implements Heuristic
+{
+	private static final double EARTH_RADIUS = 6371008.8; // metres
+
+	private final double[] x;      // x or latitude in radians, per vertex id
+	private final double[] y;      // y or longitude in radians, per vertex id
+	private final boolean[] known;
+	private final boolean haversine;
+	private final double scale;    // smallest edge time per unit of distance, 0 if unusable
+	private final int missing;     // vertices without coordinates
+
+	public CoordinateHeuristic(CsrGraph g, Map<String, double[]> coordinates,
+			boolean haversine) {
+		int n = g.vertexCount();
+		this.haversine = haversine;
+		x = new double[n];
+		y = new double[n];
+		known = new boolean[n];
+		int unknown = 0;
+		for (int v = 0; v < n; v++) {
+			double[] c = coordinates.get(g.name(v));
+			if (c != null) {
+				known[v] = true;
+				x[v] = haversine ? Math.toRadians(c[0]) : c[0];
+				y[v] = haversine ? Math.toRadians(c[1]) : c[1];
+			} else {
+				unknown++;
+			}
+		}
+		missing = unknown;
+
+		double s = Double.POSITIVE_INFINITY;
+		for (int v = 0; v < n; v++) {
+			if (!known[v])
+				continue;
+			for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+				int w = g.target(e);
+				if (!known[w])
+					continue;
+				double len = distance(v, w);
+				if (len > 0)
+					s = Math.min(s, g.weight(e) / len);
+			}
+		}
+		scale = s == Double.POSITIVE_INFINITY || missing > 0 ? 0 : s;
+	}
+
+	/** No. of vertices without coordinates; any at all turn estimates off. */
+	public int getMissing()
+	{
+		return missing;
+	}
+
+	public float estimate(int v, int target)
+	{
+		if (!known[v] || !known[target])
+			return 0;
+		return (float) (scale * distance(v, target)) * SAFETY;
+	}
+
+	private double distance(int a, int b)
+	{
+		if (!haversine)
+			return Math.hypot(x[a] - x[b], y[a] - y[b]);
+		double dlat = x[b] - x[a];
+		double dlon = y[b] - y[a];
+		double h = Math.sin(dlat / 2) * Math.sin(dlat / 2) + Math.cos(x[a])
+				* Math.cos(x[b]) * Math.sin(dlon / 2) * Math.sin(dlon / 2);
+		return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/**
+	 * Reads a coordinates file made of lines "name x y" (or "name lat lon").
+	 */
+	public static Map<String, double[]> load(String file) throws IOException
+	{
+		Map<String, double[]> coordinates = new HashMap<String, double[]>();
+		try (Scanner in = new Scanner(new FileReader(file))) {
+			while (in.hasNextLine()) {
+				String line = in.nextLine();
+				StringTokenizer st = new StringTokenizer(line);
+				try {
+					if (st.countTokens() != 3) {
+						System.err.println("Skipping ill-formatted line " + line);
+						continue;
+					}
+					String name = st.nextToken();
+					double cx = Double.parseDouble(st.nextToken());
+					double cy = Double.parseDouble(st.nextToken());
+					coordinates.put(name, new double[] { cx, cy });
+				} catch (NumberFormatException e) {
+					System.err.println("Skipping ill-formatted line " + line);
+				}
+			}
+		}
+		return coordinates;
+	}
+}
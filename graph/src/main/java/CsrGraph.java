@@ -0,0 +1,615 @@
+import java.io.PrintWriter;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+// Frozen, int-indexed compressed sparse row (CSR) snapshot of the graph.
+// Vertex ids are assigned in name order and the out edges of every vertex
+// are stored sorted by head name, so walking ids in order gives the same
+// sorted output the TreeMap based printing produces. Names are resolved
+// through a NameDictionary whose ids are the vertex ids.
+// VertexOrder may relabel a snapshot so that neighbours get nearby ids; its
+// ids are then in no particular order and byName lists them in name order,
+// which every sorted output walks instead of the ids.
+// The arrays are held as buffers: heap arrays wrapped for snapshots frozen or
+// loaded in memory, or the sections of a file mapped by GraphSnapshot, so a
+// saved graph is queried straight out of the page cache.
+// ******************PUBLIC OPERATIONS*******************************************************************
+// static CsrGraph build( NameDictionary d, List<Vertex> l )---->freezes the vertices and edges of the graph
+// int indexOf( String name )---->vertex id of a name, or -1 if it is not present
+// int byName( int i )---->id of the i-th vertex in name order
+// ShortestPathTree weighted( int s )---->Dijkstra single-source shortest path tree over the snapshot
+// ShortestPathResult shortestPath( int s, int t )---->point-to-point shortest path
+// ShortestPathResult bidirectional( int s, int t )---->point-to-point search from both ends
+// ShortestPathResult astar( int s, int t, Heuristic h )---->point-to-point search guided by a heuristic
+// void reachable_vertices()---->prints all the reachable vertices from all the vertices
+// void printGraph( PrintWriter out )---->prints all the vertices with their edges and states
+final class CsrGraph
+{
+	private final int n;               // no. of vertices
+	private final int m;               // no. of edges
+	private final NameDictionary names; // vertex id <-> name
+	private final IntBuffer offsets;   // out edges of v are [offsets[v], offsets[v + 1])
+	private final IntBuffer targets;   // edge id -> head vertex id
+	private final FloatBuffer weights; // edge id -> traverse time
+	private final LongBuffer vertexDown; // bitset of down vertices
+	private final LongBuffer edgeDown;   // bitset of down edges
+	private final IntBuffer rOffsets;  // in edges of v are [rOffsets[v], rOffsets[v + 1])
+	private final IntBuffer rSources;  // reverse slot -> tail vertex id
+	private final IntBuffer rEdges;    // reverse slot -> forward edge id
+	private final IntBuffer byName;    // name rank -> vertex id, null when ids are in name order
+
+	CsrGraph(NameDictionary names, int[] offsets, int[] targets,
+			float[] weights, long[] vertexDown, long[] edgeDown, int[] byName) {
+		n = names.size();
+		m = targets.length;
+		this.names = names;
+		this.byName = byName == null ? null : IntBuffer.wrap(byName);
+		this.offsets = IntBuffer.wrap(offsets);
+		this.targets = IntBuffer.wrap(targets);
+		this.weights = FloatBuffer.wrap(weights);
+		this.vertexDown = LongBuffer.wrap(vertexDown);
+		this.edgeDown = LongBuffer.wrap(edgeDown);
+
+		// ***reverse adjacency is built alongside the forward arrays by a
+		// ***counting sort of the edges on their heads
+		int[] rOffsets = new int[n + 1];
+		int[] rSources = new int[m];
+		int[] rEdges = new int[m];
+		for (int e = 0; e < m; e++) {
+			rOffsets[targets[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			rOffsets[v + 1] += rOffsets[v];
+		}
+		int[] fill = Arrays.copyOf(rOffsets, n);
+		for (int v = 0; v < n; v++) {
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				int r = fill[targets[e]]++;
+				rSources[r] = v;
+				rEdges[r] = e;
+			}
+		}
+		this.rOffsets = IntBuffer.wrap(rOffsets);
+		this.rSources = IntBuffer.wrap(rSources);
+		this.rEdges = IntBuffer.wrap(rEdges);
+	}
+
+	// Snapshot over buffers that already hold every array, as GraphSnapshot
+	// maps them from a file
+	CsrGraph(NameDictionary names, IntBuffer offsets,
+			IntBuffer targets, FloatBuffer weights, IntBuffer rOffsets,
+			IntBuffer rSources, IntBuffer rEdges, LongBuffer vertexDown,
+			LongBuffer edgeDown, IntBuffer byName) {
+		n = offsets.limit() - 1;
+		m = targets.limit();
+		this.names = names;
+		this.byName = byName;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.rOffsets = rOffsets;
+		this.rSources = rSources;
+		this.rEdges = rEdges;
+		this.vertexDown = vertexDown;
+		this.edgeDown = edgeDown;
+	}
+
+	/**
+	 * Builds a snapshot of the vertices and edges currently held in the
+	 * graph populated by addEdge/addedge, whose vertex ids are the ids of
+	 * their names in dict. Later changes to the graph are not seen.
+	 */
+	public static CsrGraph build(NameDictionary dict, List<Vertex> vertices)
+	{
+		int n = vertices.size();
+		// ***snapshot id of every vertex id, and the other way round
+		int[] rank = dict.ranks();
+		int[] order = new int[n];
+		for (int id = 0; id < n; id++)
+			order[rank[id]] = id;
+
+		int[] offsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] = offsets[v] + vertices.get(order[v]).adj.size();
+		}
+
+		int m = offsets[n];
+		int[] targets = new int[m];
+		float[] weights = new float[m];
+		long[] vertexDown = new long[words(n)];
+		long[] edgeDown = new long[words(m)];
+
+		long[] sorted = new long[0];
+		for (int v = 0; v < n; v++) {
+			Vertex vertex = vertices.get(order[v]);
+			if (vertex.isDown()) {
+				set(vertexDown, v);
+			}
+			// ***order the edges by head id, ties by slot, through one long
+			// ***key each, leaving the mutable adjacency untouched
+			Adjacency adj = vertex.adj;
+			if (sorted.length < adj.size())
+				sorted = new long[Math.max(adj.size(), 2 * sorted.length)];
+			int k = 0;
+			for (int slot = 0; slot < adj.slots(); slot++) {
+				if (adj.end(slot) >= 0)
+					sorted[k++] = (long) rank[adj.end(slot)] << 32 | slot;
+			}
+			Arrays.sort(sorted, 0, k);
+
+			int e = offsets[v];
+			for (int i = 0; i < k; i++) {
+				int slot = (int) sorted[i];
+				targets[e] = (int) (sorted[i] >>> 32);
+				weights[e] = adj.weight(slot);
+				if (adj.isDown(slot)) {
+					set(edgeDown, e);
+				}
+				e++;
+			}
+		}
+		return new CsrGraph(dict.sorted(), offsets, targets, weights, vertexDown, edgeDown, null);
+	}
+
+	public int vertexCount()
+	{
+		return n;
+	}
+
+	public int edgeCount()
+	{
+		return m;
+	}
+
+	/**
+	 * Returns the vertex id of a name, or -1 if the vertex is not present.
+	 * Allocates nothing.
+	 */
+	public int indexOf(CharSequence name)
+	{
+		return names.find(name);
+	}
+
+	public String name(int v)
+	{
+		return names.name(v);
+	}
+
+	/** The vertex names, ids being vertex ids. */
+	public NameDictionary names()
+	{
+		return names;
+	}
+
+	/** Id of the vertex whose name comes i-th in name order. */
+	public int byName(int i)
+	{
+		return byName == null ? i : byName.get(i);
+	}
+
+	/** True unless the ids were relabeled out of name order. */
+	public boolean inNameOrder()
+	{
+		return byName == null;
+	}
+
+	public int edgeStart(int v)
+	{
+		return offsets.get(v);
+	}
+
+	public int edgeEnd(int v)
+	{
+		return offsets.get(v + 1);
+	}
+
+	public int target(int e)
+	{
+		return targets.get(e);
+	}
+
+	public float weight(int e)
+	{
+		return weights.get(e);
+	}
+
+	public int reverseStart(int v)
+	{
+		return rOffsets.get(v);
+	}
+
+	public int reverseEnd(int v)
+	{
+		return rOffsets.get(v + 1);
+	}
+
+	// Tail of the edge held in reverse slot r
+	public int reverseSource(int r)
+	{
+		return rSources.get(r);
+	}
+
+	// Forward edge id of the edge held in reverse slot r
+	public int reverseEdge(int r)
+	{
+		return rEdges.get(r);
+	}
+
+	public boolean isVertexDown(int v)
+	{
+		return (vertexDown.get(v >>> 6) & (1L << v)) != 0;
+	}
+
+	public boolean isEdgeDown(int e)
+	{
+		return (edgeDown.get(e >>> 6) & (1L << e)) != 0;
+	}
+
+	/**
+	 * Single-source weighted shortest-path algorithm - Dijikistra algorithm
+	 * over the snapshot. Down edges and edges into down vertices are skipped.
+	 * The search runs in pooled per-thread scratch, so any number of threads
+	 * may query the same snapshot at once.
+	 */
+	public ShortestPathTree weighted(int source)
+	{
+		return weighted(source, true);
+	}
+
+	// The tree of source; counted is false where it is not query work
+	ShortestPathTree weighted(int source, boolean counted)
+	{
+		SearchScratch s = SearchScratch.acquire(n, counted);
+		try {
+			dijkstra(s, source, -1);
+			return ShortestPathTree.copyOf(this, source, s);
+		} finally {
+			s.release();
+		}
+	}
+
+	/**
+	 * Point-to-point shortest path; the search stops as soon as target is
+	 * settled.
+	 */
+	public ShortestPathResult shortestPath(int source, int target)
+	{
+		SearchScratch s = SearchScratch.acquire(n, true);
+		try {
+			int settled = dijkstra(s, source, target);
+			return pathOf(s, source, target, settled);
+		} finally {
+			s.release();
+		}
+	}
+
+	/**
+	 * Point-to-point shortest path searching from both ends at once: forward
+	 * from source over out edges and backward from target over in edges,
+	 * always expanding the side whose queue has the smaller key. mu holds the
+	 * best source-target distance seen where the two searches touch, and the
+	 * search stops once the two queue tops add up to at least mu, since no
+	 * shorter path can be found after that.
+	 */
+	public ShortestPathResult bidirectional(int source, int target)
+	{
+		if (isVertexDown(source) || isVertexDown(target))
+			return ShortestPathResult.unreachable(name(source), name(target), 0);
+		if (source == target)
+			return shortestPath(source, target);
+
+		SearchScratch f = SearchScratch.acquire(n, true);
+		SearchScratch b = SearchScratch.acquire(n, true);
+		try {
+			DaryHeap qf = f.heap;
+			DaryHeap qb = b.heap;
+			f.set(source, 0, -1);
+			qf.insert(source, 0);
+			b.set(target, 0, -1);
+			qb.insert(target, 0);
+
+			double mu = Double.POSITIVE_INFINITY;
+			int meetTail = -1;   // best path is source..meetTail -> meetHead..target
+			int meetHead = -1;
+			int settled = 0;
+
+			while (qf.peekKey() + qb.peekKey() < mu) {
+				settled++;
+				if (qf.peekKey() <= qb.peekKey()) {
+					int v = qf.pop();
+					float dv = f.dist(v);
+					if (Stats.ENABLED)
+						f.scanned += offsets.get(v + 1) - offsets.get(v);
+					for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+						int w = targets.get(e);
+						if (isEdgeDown(e) || isVertexDown(w))
+							continue;
+						float nd = dv + weights.get(e);
+						if (nd < f.dist(w)) {
+							f.set(w, nd, v);
+							qf.offer(w, nd);
+						}
+						if (b.reached(w) && nd + b.dist(w) < mu) {
+							mu = nd + b.dist(w);
+							meetTail = v;
+							meetHead = w;
+						}
+					}
+				} else {
+					int w = qb.pop();
+					float dw = b.dist(w);
+					if (Stats.ENABLED)
+						b.scanned += rOffsets.get(w + 1) - rOffsets.get(w);
+					for (int r = rOffsets.get(w); r < rOffsets.get(w + 1); r++) {
+						int e = rEdges.get(r);
+						int u = rSources.get(r);
+						if (isEdgeDown(e) || isVertexDown(u))
+							continue;
+						float nd = dw + weights.get(e);
+						if (nd < b.dist(u)) {
+							// ***backward "prev" points one step closer to target
+							b.set(u, nd, w);
+							qb.offer(u, nd);
+						}
+						if (f.reached(u) && f.dist(u) + nd < mu) {
+							mu = f.dist(u) + nd;
+							meetTail = u;
+							meetHead = w;
+						}
+					}
+				}
+			}
+			if (meetTail < 0)
+				return ShortestPathResult.unreachable(name(source), name(target), settled);
+
+			int len = 0;
+			for (int v = meetTail; v != -1; v = f.prev(v))
+				len++;
+			for (int v = meetHead; v != -1; v = b.prev(v))
+				len++;
+			int[] ids = new int[len];
+			int i = 0;
+			for (int v = meetTail; v != -1; v = f.prev(v))
+				ids[i++] = v;
+			reverse(ids, 0, i);
+			for (int v = meetHead; v != -1; v = b.prev(v))
+				ids[i++] = v;
+			return pathOf(ids, settled);
+		} finally {
+			b.release();
+			f.release();
+		}
+	}
+
+	/**
+	 * A* point-to-point search. The queue is keyed on distance from source
+	 * plus the heuristic's estimate of the distance left to target, so the
+	 * search heads towards target and settles far fewer vertices. With an
+	 * admissible heuristic the path is as short as Dijkstra's. A vertex is
+	 * re-queued if a shorter way to it turns up after it was expanded, which
+	 * keeps the result exact even when the heuristic is not consistent.
+	 */
+	public ShortestPathResult astar(int source, int target, Heuristic h)
+	{
+		if (isVertexDown(source))
+			return ShortestPathResult.unreachable(name(source), name(target), 0);
+		SearchScratch s = SearchScratch.acquire(n, true);
+		try {
+			DaryHeap q = s.heap;
+			int settled = 0;
+			s.set(source, 0, -1);
+			q.insert(source, h.estimate(source, target));
+			while (!q.isEmpty()) {
+				int v = q.pop();
+				settled++;
+				if (v == target)
+					break;
+				float dv = s.dist(v);
+				if (Stats.ENABLED)
+					s.scanned += offsets.get(v + 1) - offsets.get(v);
+				for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+					int w = targets.get(e);
+					if (isEdgeDown(e) || isVertexDown(w))
+						continue;
+					float nd = dv + weights.get(e);
+					if (nd < s.dist(w)) {
+						s.set(w, nd, v);
+						q.offer(w, (double) nd + h.estimate(w, target));
+					}
+				}
+			}
+			return pathOf(s, source, target, settled);
+		} finally {
+			s.release();
+		}
+	}
+
+	/**
+	 * Distances from source to every vertex (or from every vertex to source
+	 * when reverse is set) over all edges, up or down. Used to precompute
+	 * bounds that must hold whatever state the graph is in.
+	 */
+	public float[] distances(int source, boolean reverse)
+	{
+		SearchScratch s = SearchScratch.acquire(n, false);
+		try {
+			DaryHeap q = s.heap;
+			s.set(source, 0, -1);
+			q.insert(source, 0);
+			while (!q.isEmpty()) {
+				int v = q.pop();
+				float dv = s.dist(v);
+				int end = reverse ? rOffsets.get(v + 1) : offsets.get(v + 1);
+				int start = reverse ? rOffsets.get(v) : offsets.get(v);
+				if (Stats.ENABLED)
+					s.scanned += end - start;
+				for (int i = start; i < end; i++) {
+					int e = reverse ? rEdges.get(i) : i;
+					int w = reverse ? rSources.get(i) : targets.get(i);
+					float nd = dv + weights.get(e);
+					if (nd < s.dist(w)) {
+						s.set(w, nd, v);
+						q.offer(w, nd);
+					}
+				}
+			}
+			float[] dist = new float[n];
+			for (int v = 0; v < n; v++)
+				dist[v] = s.dist(v);
+			return dist;
+		} finally {
+			s.release();
+		}
+	}
+
+	// Builds the result for a path given as vertex ids. Distances are summed
+	// from the source edge by edge, so they come out exactly as the one
+	// directional search would have computed them.
+	ShortestPathResult pathOf(int[] ids, int settled)
+	{
+		String[] path = new String[ids.length];
+		float[] d = new float[ids.length];
+		path[0] = name(ids[0]);
+		for (int i = 1; i < ids.length; i++) {
+			path[i] = name(ids[i]);
+			d[i] = d[i - 1] + upWeight(ids[i - 1], ids[i]);
+		}
+		return new ShortestPathResult(path[0], path[ids.length - 1], path, d, settled);
+	}
+
+	// Smallest weight of an up edge tail -> head
+	float upWeight(int tail, int head)
+	{
+		float best = Graph.INFINITY;
+		for (int e = offsets.get(tail); e < offsets.get(tail + 1); e++) {
+			if (targets.get(e) == head && !isEdgeDown(e) && weights.get(e) < best)
+				best = weights.get(e);
+		}
+		return best;
+	}
+
+	static void reverse(int[] a, int from, int to)
+	{
+		for (int i = from, j = to - 1; i < j; i++, j--) {
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	// Runs Dijkstra from source until target is settled, or over every
+	// reachable vertex when target is -1. Returns the no. of settled vertices
+	private int dijkstra(SearchScratch s, int source, int target)
+	{
+		if (isVertexDown(source))
+			return 0;
+		DaryHeap q = s.heap;
+		int settled = 0;
+		s.set(source, 0, -1);
+		q.insert(source, 0);
+		while (!q.isEmpty()) {
+			int v = q.pop();
+			settled++;
+			if (v == target)
+				break;
+			float dv = s.dist(v);
+			if (Stats.ENABLED)
+				s.scanned += offsets.get(v + 1) - offsets.get(v);
+			for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+				int w = targets.get(e);
+				if (isEdgeDown(e) || isVertexDown(w))
+					continue;
+				float nd = dv + weights.get(e);
+				if (nd < s.dist(w)) {
+					s.set(w, nd, v);
+					q.offer(w, nd);
+				}
+			}
+		}
+		return settled;
+	}
+
+	// Walks the predecessors held in scratch back from target
+	ShortestPathResult pathOf(SearchScratch s, int source, int target, int settled)
+	{
+		if (!s.reached(target))
+			return ShortestPathResult.unreachable(name(source), name(target), settled);
+		int len = 0;
+		for (int v = target; v != -1; v = s.prev(v))
+			len++;
+		String[] path = new String[len];
+		float[] d = new float[len];
+		for (int v = target, i = len - 1; v != -1; v = s.prev(v), i--) {
+			path[i] = name(v);
+			d[i] = s.dist(v);
+		}
+		return new ShortestPathResult(name(source), name(target), path, d, settled);
+	}
+
+	/**
+	 * Prints, for every up vertex in name order, the sorted list of vertices
+	 * reachable from it over up edges and up vertices.
+	 */
+	public void reachable_vertices()
+	{
+		PrintWriter out = Graph.stdout();
+		new Reachability(this).print(out);
+		out.flush();
+	}
+
+	/**
+	 * This method with print all the vertices and their corresponding edges
+	 * along with their states
+	 */
+	public void printGraph(PrintWriter out)
+	{
+		for (int i = 0; i < n; i++) {
+			int v = byName(i);
+			if (isVertexDown(v)) {
+				out.println(name(v) + " down");
+			} else {
+				out.println(name(v));
+			}
+			for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+				if (isEdgeDown(e)) {
+					out.println("         " + name(targets.get(e))
+							+ " " + weights.get(e) + " down");
+				} else {
+					out.println("         " + name(targets.get(e))
+							+ " " + weights.get(e));
+				}
+			}
+		}
+	}
+
+	// Same as printGraph(out), printing to System.out
+	public void printGraph()
+	{
+		PrintWriter out = Graph.stdout();
+		printGraph(out);
+		out.flush();
+	}
+
+	static int words(int bits)
+	{
+		return (bits + 63) >>> 6;
+	}
+
+	static boolean get(long[] bits, int i)
+	{
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	static void set(long[] bits, int i)
+	{
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	static void clear(long[] bits, int i)
+	{
+		bits[i >>> 6] &= ~(1L << i);
+	}
+}
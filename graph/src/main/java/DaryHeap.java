@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Indexed d-ary min heap of vertex ids keyed on distances. Each id is held
+// at most once and its slot is tracked in pos[], so a relaxation lowers the
+// key in place (decrease-key) instead of queueing a duplicate.
+
+class DaryHeap
+{
+
+	public static final int DEFAULT_ARITY = 4;
+
+	private final int arity;
+	private int[] heap;           // heap slot -> vertex id
+	private int[] pos;            // vertex id -> heap slot, -1 when not queued
+	private double[] keys;        // vertex id -> distance key
+	private int items = 0;        // housekeeping of no. of elements in the heap
+	long pushes, pops, decreases; // counted when Stats.ENABLED, see resetCounts
+	int maxSize;
+
+	public DaryHeap(int capacity) {
+		this(capacity, DEFAULT_ARITY);
+	}
+
+	public DaryHeap(int capacity, int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("arity must be at least 2");
+		this.arity = arity;
+		heap = new int[capacity];
+		pos = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(pos, -1);
+	}
+
+	// Grows the id range to at least capacity, keeping the queued ids
+	public void ensureCapacity(int capacity)
+	{
+		if (capacity > pos.length) {
+			int old = pos.length;
+			int size = Math.max(capacity, old + (old >> 1));
+			heap = Arrays.copyOf(heap, size);
+			pos = Arrays.copyOf(pos, size);
+			keys = Arrays.copyOf(keys, size);
+			Arrays.fill(pos, old, size, -1);
+		}
+	}
+
+	public int getArity()
+	{
+		return arity;
+	}
+
+	public int size()
+	{
+		return items;
+	}
+
+	public boolean isEmpty()
+	{
+		return items == 0;
+	}
+
+	public boolean contains(int v)
+	{
+		return pos[v] >= 0;
+	}
+
+	public double key(int v)
+	{
+		return keys[v];
+	}
+
+	// Key of the root, or +infinity when the heap is empty
+	public double peekKey()
+	{
+		return items == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+	}
+
+	public int peek()
+	{
+		if (items == 0)
+			throw new NoSuchElementException("heap is empty");
+		return heap[0];
+	}
+
+	public void insert(int v, double key)
+	{
+		keys[v] = key;
+		pos[v] = items;
+		heap[items] = v;
+		siftUp(items++);
+		if (Stats.ENABLED) {
+			pushes++;
+			if (items > maxSize)
+				maxSize = items;
+		}
+	}
+
+	public void decreaseKey(int v, double key)
+	{
+		keys[v] = key;
+		siftUp(pos[v]);
+		if (Stats.ENABLED)
+			decreases++;
+	}
+
+	// Moves a queued id to a new key, up or down
+	public void changeKey(int v, double key)
+	{
+		double old = keys[v];
+		keys[v] = key;
+		if (key < old)
+			siftUp(pos[v]);
+		else
+			siftDown(pos[v]);
+	}
+
+	// Inserts v, or lowers its key if it is already queued with a larger one.
+	// Returns true if the heap changed.
+	public boolean offer(int v, double key)
+	{
+		int slot = pos[v];
+		if (slot < 0) {
+			insert(v, key);
+			return true;
+		}
+		if (key < keys[v]) {
+			decreaseKey(v, key);
+			return true;
+		}
+		return false;
+	}
+
+	public int pop()
+	{
+		if (items == 0)
+			throw new NoSuchElementException("heap is empty");
+		int root = heap[0];
+		pos[root] = -1;
+		if (Stats.ENABLED)
+			pops++;
+		if (--items > 0) {
+			int last = heap[items];
+			heap[0] = last;
+			pos[last] = 0;
+			siftDown(0);
+		}
+		return root;
+	}
+
+	// Zeroes the push/pop/decrease-key counters and the largest size seen
+	public void resetCounts()
+	{
+		pushes = pops = decreases = 0;
+		maxSize = 0;
+	}
+
+	// Empties the heap; only the ids still queued are touched
+	public void clear()
+	{
+		for (int i = 0; i < items; i++) {
+			pos[heap[i]] = -1;
+		}
+		items = 0;
+	}
+
+	// Floats the id in slot up while its key is smaller than its parent's
+	private void siftUp(int slot)
+	{
+		int v = heap[slot];
+		double key = keys[v];
+		while (slot > 0) {
+			int parent = (slot - 1) / arity;
+			int p = heap[parent];
+			if (keys[p] <= key)
+				break;
+			heap[slot] = p;
+			pos[p] = slot;
+			slot = parent;
+		}
+		heap[slot] = v;
+		pos[v] = slot;
+	}
+
+	// Sinks the id in slot down below its smallest child
+	private void siftDown(int slot)
+	{
+		int v = heap[slot];
+		double key = keys[v];
+		while (true) {
+			int first = slot * arity + 1;
+			if (first >= items)
+				break;
+			int last = Math.min(first + arity, items);
+			int smallest = first;
+			double smallestKey = keys[heap[first]];
+			for (int c = first + 1; c < last; c++) {
+				double k = keys[heap[c]];
+				if (k < smallestKey) {
+					smallest = c;
+					smallestKey = k;
+				}
+			}
+			if (key <= smallestKey)
+				break;
+			int child = heap[smallest];
+			heap[slot] = child;
+			pos[child] = slot;
+			slot = smallest;
+		}
+		heap[slot] = v;
+		pos[v] = slot;
+	}
+}
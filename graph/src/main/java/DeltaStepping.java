@@ -0,0 +1,371 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Parallel single-source shortest path trees over a CsrGraph by
+// delta-stepping (Meyer and Sanders). Vertices wait in buckets of width
+// delta by tentative distance. The lowest non-empty bucket is settled in
+// phases: the light edges (weight <= delta) of every vertex in it are
+// relaxed in parallel, which may drop more vertices into the same bucket,
+// until it stays empty; then the heavy edges of everything settled in it are
+// relaxed once. Relaxations race on one distance array, lowered with
+// compare-and-set on the float bits (non-negative floats order like their
+// bits), and the vertices they improve are claimed once per phase through a
+// stamp, so each lands in one bucket list.
+// Tentative distances never run more than the heaviest edge ahead of the
+// bucket being settled, so the buckets are kept in a ring of about
+// maxWeight / delta + 2 slots, bucket b in slot b mod ring size, instead of
+// one array entry for every bucket up to the farthest distance. A width
+// so small that the ring would pass MAX_RING slots is widened to fit.
+// Distances come out exactly as Dijkstra's, since both compute the same
+// least fixed point of dist(w) = min dist(v) + weight(v, w) in float. The
+// predecessors are then picked in parallel the way Dijkstra picks them:
+// among the in edges that give w its distance, the one from the vertex
+// settled first, i.e. at the smallest distance. Only when two such vertices
+// are at the same distance does Dijkstra's choice depend on its heap order,
+// and the tree is then recomputed by Dijkstra to stay identical; a snapshot
+// where that keeps happening gets Dijkstra right away.
+final class DeltaStepping
+{
+	private static final int CHUNK = 1024;   // vertices per task
+	private static final int MAX_RING = 1 << 16; // bucket slots at most
+
+	private final ForkJoinPool pool;
+	private final float delta;               // bucket width, 0 to pick one per graph
+	private long trees;
+	private long fallbacks;
+	private CsrGraph measured;               // graph width and usable were taken of
+	private float measuredWidth;
+	private float measuredMax;               // heaviest up edge
+	private boolean usable;                  // no negative weights, few ties so far
+	private int measuredTrees;               // trees of measured, and how many fell back
+	private int measuredFallbacks;
+
+	/** Delta-stepping with buckets as wide as the mean edge weight. */
+	public DeltaStepping(ForkJoinPool pool) {
+		this.pool = pool;
+		this.delta = 0;
+	}
+
+	/** Delta-stepping with buckets of width delta, which must be positive. */
+	public DeltaStepping(ForkJoinPool pool, float delta) {
+		if (!(delta > 0) || Float.isInfinite(delta))
+			throw new GraphException("Bad bucket width " + delta);
+		this.pool = pool;
+		this.delta = delta;
+	}
+
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+
+	public float getDelta()
+	{
+		return delta;
+	}
+
+	/** Trees computed, and how many of them fell back to Dijkstra. */
+	public synchronized long getTrees()
+	{
+		return trees;
+	}
+
+	public synchronized long getFallbacks()
+	{
+		return fallbacks;
+	}
+
+	/**
+	 * Shortest path tree of source, with the same distances and predecessors
+	 * as CsrGraph.weighted(source).
+	 */
+	public ShortestPathTree tree(CsrGraph g, int source)
+	{
+		int n = g.vertexCount();
+		float width = measure(g);
+		if (g.isVertexDown(source) || !usable || !(width > 0))
+			return count(g, g.weighted(source, false), true);
+
+		Search s = new Search(g, width, measuredMax);
+		s.run(source);
+		float[] dist = new float[n];
+		for (int v = 0; v < n; v++)
+			dist[v] = Float.intBitsToFloat(s.dist.get(v));
+		int[] prev = new int[n];
+		if (!predecessors(g, source, dist, prev))
+			return count(g, g.weighted(source, false), true);
+		return count(g, new ShortestPathTree(g, source, dist, prev), false);
+	}
+
+	// Counts a tree of g. Once most trees of a snapshot fall back (integer
+	// weights make exact ties common), the rest go to Dijkstra directly
+	private synchronized ShortestPathTree count(CsrGraph g, ShortestPathTree t,
+			boolean fallback)
+	{
+		trees++;
+		if (fallback)
+			fallbacks++;
+		if (g == measured) {
+			measuredTrees++;
+			if (fallback && ++measuredFallbacks >= 4 && 2 * measuredFallbacks > measuredTrees)
+				usable = false;
+		}
+		return t;
+	}
+
+	// Bucket width for g, by default the mean weight of the up edges so that
+	// a bucket holds about one hop, widened when the heaviest edge would
+	// need more than MAX_RING buckets. Also checks for negative weights,
+	// which delta-stepping cannot take. Done once per snapshot
+	private synchronized float measure(CsrGraph g)
+	{
+		if (measured != g) {
+			double sum = 0;
+			long up = 0;
+			float max = 0;
+			boolean negative = false;
+			for (int e = 0; e < g.edgeCount(); e++) {
+				float w = g.weight(e);
+				if (w < 0)
+					negative = true;
+				if (!g.isEdgeDown(e)) {
+					sum += w;
+					up++;
+					max = Math.max(max, w);
+				}
+			}
+			float width = delta > 0 ? delta : up == 0 ? 1 : (float) (sum / up);
+			measured = g;
+			measuredMax = max;
+			measuredWidth = Math.max(width, max / (MAX_RING - 4));
+			usable = !negative;
+			measuredTrees = 0;
+			measuredFallbacks = 0;
+		}
+		return measuredWidth;
+	}
+
+	// Runs body over [0, count) in chunks on the pool and waits for all. A
+	// tree still being computed when the pool is shut down (the engine was
+	// replaced) finishes its remaining chunks on the calling thread.
+	private void parallel(int count, ChunkBody body)
+	{
+		if (count <= CHUNK) {
+			body.run(0, 0, count);
+			return;
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int c = 0, from = 0; from < count; c++, from += CHUNK) {
+			final int chunk = c;
+			final int lo = from;
+			final int hi = Math.min(count, from + CHUNK);
+			try {
+				tasks.add(pool.submit(() -> body.run(chunk, lo, hi)));
+			} catch (RejectedExecutionException e) {
+				body.run(chunk, lo, hi);
+			}
+		}
+		for (ForkJoinTask<?> t : tasks)
+			t.join();
+	}
+
+	// Work on the items [from, to) of a phase, as chunk no. chunk
+	private interface ChunkBody
+	{
+		void run(int chunk, int from, int to);
+	}
+
+	// Picks every predecessor the way Dijkstra does; returns false if some
+	// vertex has two equally early candidates
+	private boolean predecessors(final CsrGraph g, final int source, final float[] dist,
+			final int[] prev)
+	{
+		final int n = g.vertexCount();
+		final boolean[] tie = new boolean[1];
+		parallel(n, (chunk, from, to) -> {
+			for (int w = from; w < to; w++) {
+				prev[w] = -1;
+				if (w == source || dist[w] == Graph.INFINITY)
+					continue;
+				int best = -1;
+				boolean tied = false;
+				for (int r = g.reverseStart(w); r < g.reverseEnd(w); r++) {
+					int u = g.reverseSource(r);
+					int e = g.reverseEdge(r);
+					if (u == w || g.isEdgeDown(e) || dist[u] == Graph.INFINITY)
+						continue;
+					if (dist[u] + g.weight(e) != dist[w])
+						continue;
+					if (best < 0 || dist[u] < dist[best]) {
+						best = u;
+						tied = false;
+					} else if (dist[u] == dist[best] && u != best) {
+						tied = true;
+					}
+				}
+				// ***a candidate at w's own distance may be settled after w
+				if (tied || best < 0 || dist[best] == dist[w]) {
+					tie[0] = true;
+					return;
+				}
+				prev[w] = best;
+			}
+		});
+		return !tie[0];
+	}
+
+	// One delta-stepping search
+	private final class Search
+	{
+		final CsrGraph g;
+		final float width;
+		final AtomicIntegerArray dist;     // float bits
+		final AtomicIntegerArray claimed;  // phase that last queued the vertex
+		final int[][] buckets;             // bucket b in slot b % buckets.length
+		final int[] sizes;
+		long queued;                       // entries in all the buckets, stale ones too
+		int[] heavy = new int[16];         // settled since the last heavy pass
+		int[] inHeavy;                     // = round when in heavy
+		int phase = 0;
+		int round = 0;
+
+		Search(CsrGraph g, float width, float maxWeight) {
+			this.g = g;
+			this.width = width;
+			// ***a vertex queued while settling bucket b lands at most
+			// ***maxWeight / width + 1 buckets further, so no two live
+			// ***buckets share a slot
+			int ring = (int) Math.min(MAX_RING, Math.floor(maxWeight / width) + 3);
+			buckets = new int[ring][];
+			sizes = new int[ring];
+			int n = g.vertexCount();
+			int[] inf = new int[n];
+			Arrays.fill(inf, Float.floatToRawIntBits(Graph.INFINITY));
+			dist = new AtomicIntegerArray(inf);
+			claimed = new AtomicIntegerArray(n);
+			inHeavy = new int[n];
+		}
+
+		float dist(int v)
+		{
+			return Float.intBitsToFloat(dist.get(v));
+		}
+
+		int bucketOf(float d)
+		{
+			return (int) Math.min(Math.floor(d / width), Integer.MAX_VALUE - 1);
+		}
+
+		void add(int b, int v)
+		{
+			int slot = b % buckets.length;
+			int[] list = buckets[slot];
+			if (list == null)
+				list = buckets[slot] = new int[16];
+			else if (sizes[slot] == list.length)
+				list = buckets[slot] = Arrays.copyOf(list, 2 * list.length);
+			list[sizes[slot]++] = v;
+			queued++;
+		}
+
+		void run(int source)
+		{
+			dist.set(source, Float.floatToRawIntBits(0f));
+			add(0, source);
+			for (int b = 0; queued > 0; b++) {
+				int slot = b % buckets.length;
+				while (sizes[slot] > 0) {
+					round++;
+					int heavyCount = 0;
+					// ***light edges until the bucket stays empty
+					while (sizes[slot] > 0) {
+						int[] list = buckets[slot];
+						int size = sizes[slot];
+						buckets[slot] = null;
+						sizes[slot] = 0;
+						queued -= size;
+						// ***keep the entries still current, each vertex once
+						phase++;
+						int live = 0;
+						for (int i = 0; i < size; i++) {
+							int v = list[i];
+							if (bucketOf(dist(v)) != b || claimed.get(v) == phase)
+								continue;
+							claimed.set(v, phase);
+							list[live++] = v;
+							if (inHeavy[v] != round) {
+								inHeavy[v] = round;
+								if (heavyCount == heavy.length)
+									heavy = Arrays.copyOf(heavy, 2 * heavyCount);
+								heavy[heavyCount++] = v;
+							}
+						}
+						relax(list, live, true, b);
+					}
+					// ***heavy edges once per vertex, from its final distance;
+					// ***rounding may still drop a vertex back into bucket b
+					relax(heavy, heavyCount, false, b);
+				}
+			}
+		}
+
+		// Relaxes the light or heavy edges of the first count vertices of
+		// list in parallel, then files the improved vertices into buckets
+		void relax(final int[] list, int count, final boolean light, int b)
+		{
+			if (count == 0)
+				return;
+			final int p = ++phase;
+			int chunks = (count + CHUNK - 1) / CHUNK;
+			final int[][] out = new int[chunks][];
+			final int[] outSizes = new int[chunks];
+			parallel(count, (chunk, from, to) -> {
+				int[] mine = new int[16];
+				int k = 0;
+				for (int i = from; i < to; i++) {
+					int v = list[i];
+					float dv = dist(v);
+					for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+						float wt = g.weight(e);
+						if ((wt <= width) != light)
+							continue;
+						int w = g.target(e);
+						if (g.isEdgeDown(e) || g.isVertexDown(w))
+							continue;
+						if (lower(w, dv + wt) && claimed.getAndSet(w, p) != p) {
+							if (k == mine.length)
+								mine = Arrays.copyOf(mine, 2 * k);
+							mine[k++] = w;
+						}
+					}
+				}
+				out[chunk] = mine;
+				outSizes[chunk] = k;
+			});
+			for (int c = 0; c < chunks; c++) {
+				for (int i = 0; i < outSizes[c]; i++) {
+					int w = out[c][i];
+					add(Math.max(b, bucketOf(dist(w))), w);
+				}
+			}
+		}
+
+		// Lowers the distance of w to d if that is an improvement
+		boolean lower(int w, float d)
+		{
+			int bits = Float.floatToRawIntBits(d);
+			int cur = dist.get(w);
+			while (bits < cur) {
+				if (dist.compareAndSet(w, cur, bits))
+					return true;
+				cur = dist.get(w);
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Dense many-to-many distance table over one CsrGraph snapshot.
+// Every source row is an independent Dijkstra search in its own pooled
+// scratch, so the rows run in parallel on a fork-join pool while sharing the
+// read-only snapshot. A row search stops as soon as all targets are settled.
+final class DistanceMatrix
+{
+	// Receives finished rows in source order
+	interface RowSink
+	{
+		void row(int i, float[] values, int offset);
+	}
+
+	private final int[] sources;
+	private final int[] targets;
+	private final float[] values;      // row-major, Graph.INFINITY when unreachable
+
+	private DistanceMatrix(int[] sources, int[] targets, float[] values) {
+		this.sources = sources;
+		this.targets = targets;
+		this.values = values;
+	}
+
+	public int rows()
+	{
+		return sources.length;
+	}
+
+	public int columns()
+	{
+		return targets.length;
+	}
+
+	public float get(int i, int j)
+	{
+		return values[i * targets.length + j];
+	}
+
+	/**
+	 * Computes the table on the pool, handing every row to sink (if not
+	 * null) in source order as soon as it and all rows before it are done.
+	 */
+	public static DistanceMatrix compute(final CsrGraph g, final int[] sources,
+			final int[] targets, ForkJoinPool pool, RowSink sink)
+	{
+		final int cols = targets.length;
+		final float[] values = new float[sources.length * cols];
+		final boolean[] isTarget = new boolean[g.vertexCount()];
+		int distinct = 0;
+		for (int t : targets) {
+			if (!isTarget[t]) {
+				isTarget[t] = true;
+				distinct++;
+			}
+		}
+		final int wanted = distinct;
+
+		List<ForkJoinTask<?>> rows = new ArrayList<ForkJoinTask<?>>(sources.length);
+		for (int i = 0; i < sources.length; i++) {
+			final int row = i;
+			rows.add(pool.submit(() -> fillRow(g, sources[row], targets, isTarget,
+					wanted, values, row * cols)));
+		}
+		for (int i = 0; i < rows.size(); i++) {
+			rows.get(i).join();
+			if (sink != null)
+				sink.row(i, values, i * cols);
+		}
+		return new DistanceMatrix(sources.clone(), targets.clone(), values);
+	}
+
+	// One Dijkstra search from source, written into values[offset ...]
+	private static void fillRow(CsrGraph g, int source, int[] targets,
+			boolean[] isTarget, int wanted, float[] values, int offset)
+	{
+		SearchScratch s = SearchScratch.acquire(g.vertexCount(), true);
+		try {
+			if (!g.isVertexDown(source)) {
+				DaryHeap q = s.heap;
+				s.set(source, 0, -1);
+				q.insert(source, 0);
+				int left = wanted;
+				while (!q.isEmpty()) {
+					int v = q.pop();
+					if (isTarget[v] && --left == 0)
+						break;
+					float dv = s.dist(v);
+					if (Stats.ENABLED)
+						s.scanned += g.edgeEnd(v) - g.edgeStart(v);
+					for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+						int w = g.target(e);
+						if (g.isEdgeDown(e) || g.isVertexDown(w))
+							continue;
+						float nd = dv + g.weight(e);
+						if (nd < s.dist(w)) {
+							s.set(w, nd, v);
+							q.offer(w, nd);
+						}
+					}
+				}
+			}
+			for (int j = 0; j < targets.length; j++) {
+				values[offset + j] = s.dist(targets[j]);
+			}
+		} finally {
+			s.release();
+		}
+	}
+}
@@ -0,0 +1,324 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Shortest path trees of a few hot sources, kept up to date while the graph
+// changes instead of being recomputed for every path query.
+// The trees live on the mutable Vertex graph and are indexed by
+// Vertex.id. After a change only the part of each tree it can affect is
+// repaired, in the style of Ramalingam-Reps dynamic Dijkstra:
+//  - an edge into v got worse (down, deleted, heavier, or v itself down):
+//    if it was v's tree edge, the subtree under v is cut loose, each cut
+//    vertex takes its best offer from the vertices outside the subtree, and
+//    Dijkstra runs over the subtree only;
+//  - an edge got better (up, added, lighter, or its head back up): the head
+//    is relaxed and the improvement is propagated Dijkstra-style for as far
+//    as it lowers distances.
+// Every update returns the no. of tree vertices it touched, which also goes
+// into the hot tree histogram of Stats.
+final class DynamicShortestPaths
+{
+	// One maintained tree
+	private static final class Tree
+	{
+		final Vertex source;
+		float[] dist = new float[0];
+		int[] prev = new int[0];
+
+		Tree(Vertex source) {
+			this.source = source;
+		}
+	}
+
+	private final List<Tree> trees = new ArrayList<Tree>();
+	private final DaryHeap heap = new DaryHeap(0);
+	private int[] mark = new int[0];   // = stamp when in the subtree being repaired
+	private int stamp = 0;
+	private int[] subtree = new int[0];
+	private long lastTouched;
+	private long totalTouched;
+
+	// Weight the edge at slot of an adjacency with the given head contributes
+	// right now, INFINITY if it cannot be used. In edges mirror the state of
+	// their out edge, so this works for either side
+	private static float weight(Adjacency a, int slot, Vertex head)
+	{
+		if (a.isDown(slot) || head.isDown())
+			return Graph.INFINITY;
+		return a.weight(slot);
+	}
+
+	private void ensureCapacity(int n)
+	{
+		if (mark.length < n) {
+			int size = Math.max(n, mark.length + (mark.length >> 1));
+			mark = Arrays.copyOf(mark, size);
+			subtree = new int[size];
+			heap.ensureCapacity(size);
+		}
+		for (Tree t : trees) {
+			if (t.dist.length < n) {
+				int old = t.dist.length;
+				int size = Math.max(n, old + (old >> 1));
+				t.dist = Arrays.copyOf(t.dist, size);
+				t.prev = Arrays.copyOf(t.prev, size);
+				Arrays.fill(t.dist, old, size, Graph.INFINITY);
+				Arrays.fill(t.prev, old, size, -1);
+			}
+		}
+	}
+
+	/** Starts maintaining the tree of source; returns false if it already is. */
+	public synchronized boolean addSource(Vertex source)
+	{
+		for (Tree t : trees) {
+			if (t.source == source)
+				return false;
+		}
+		Tree t = new Tree(source);
+		trees.add(t);
+		ensureCapacity(Graph.vertexList.size());
+		lastTouched = recompute(t);
+		return true;
+	}
+
+	public synchronized boolean removeSource(Vertex source)
+	{
+		for (int i = 0; i < trees.size(); i++) {
+			if (trees.get(i).source == source) {
+				trees.remove(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public synchronized List<String> getSources()
+	{
+		List<String> names = new ArrayList<String>();
+		for (Tree t : trees)
+			names.add(t.source.name);
+		return names;
+	}
+
+	public synchronized long getLastTouched()
+	{
+		return lastTouched;
+	}
+
+	public synchronized long getTotalTouched()
+	{
+		return totalTouched;
+	}
+
+	/**
+	 * The maintained trees as immutable trees over csr, a snapshot of the
+	 * graph as it is now, keyed by source name. Path queries read these, so
+	 * they never see a tree in the middle of an update.
+	 */
+	public synchronized Map<String, ShortestPathTree> trees(CsrGraph csr)
+	{
+		Map<String, ShortestPathTree> out = new HashMap<String, ShortestPathTree>();
+		if (trees.isEmpty())
+			return out;
+		int n = csr.vertexCount();
+		ensureCapacity(n);
+		// ***snapshot id of every vertex id
+		int[] id = new int[n];
+		for (int v = 0; v < n; v++)
+			id[Graph.names.find(csr.name(v))] = v;
+		for (Tree t : trees) {
+			float[] dist = new float[n];
+			int[] prev = new int[n];
+			for (int v = 0; v < n; v++) {
+				dist[id[v]] = t.dist[v];
+				prev[id[v]] = t.prev[v] < 0 ? -1 : id[t.prev[v]];
+			}
+			int source = id[t.source.id];
+			out.put(t.source.name, new ShortestPathTree(csr, source, dist, prev));
+		}
+		return out;
+	}
+
+	/** The edge(s) tail -> head changed weight, state, or were added/deleted. */
+	public synchronized long edgeChanged(Vertex tail, Vertex head)
+	{
+		ensureCapacity(Graph.vertexList.size());
+		long touched = 0;
+		for (Tree t : trees) {
+			if (t.prev[head.id] == tail.id)
+				touched += cut(t, head);
+			touched += improve(t, head);
+		}
+		return report(touched);
+	}
+
+	/** Vertex v went down: everything routed through it is repaired. */
+	public synchronized long vertexDown(Vertex v)
+	{
+		long touched = 0;
+		for (Tree t : trees) {
+			if (t.source == v)
+				touched += recompute(t);
+			else if (t.dist[v.id] != Graph.INFINITY)
+				touched += cut(t, v);
+		}
+		return report(touched);
+	}
+
+	/** Vertex v came back up: its in edges are usable again. */
+	public synchronized long vertexUp(Vertex v)
+	{
+		long touched = 0;
+		for (Tree t : trees) {
+			if (t.source == v)
+				touched += recompute(t);
+			else
+				touched += improve(t, v);
+		}
+		return report(touched);
+	}
+
+	/** Many changes at once: every tree is recomputed from scratch. */
+	public synchronized long recomputeAll()
+	{
+		ensureCapacity(Graph.vertexList.size());
+		long touched = 0;
+		for (Tree t : trees)
+			touched += recompute(t);
+		return report(touched);
+	}
+
+	private long report(long touched)
+	{
+		lastTouched = touched;
+		totalTouched += touched;
+		if (Stats.ENABLED)
+			Stats.hotUpdate(touched);
+		return touched;
+	}
+
+	// Full Dijkstra from the source, used when a tree starts or its source flips
+	private int recompute(Tree t)
+	{
+		Arrays.fill(t.dist, Graph.INFINITY);
+		Arrays.fill(t.prev, -1);
+		if (t.source.isDown())
+			return 0;
+		t.dist[t.source.id] = 0;
+		heap.clear();
+		heap.insert(t.source.id, 0);
+		return propagate(t);
+	}
+
+	// Offers v the best distance over its in edges and propagates any gain
+	private int improve(Tree t, Vertex v)
+	{
+		if (v == t.source)
+			return 0;
+		heap.clear();
+		float best = t.dist[v.id];
+		int from = -1;
+		Adjacency in = v.radj;
+		for (int e = 0; e < in.slots(); e++) {
+			int u = in.end(e);
+			if (u < 0)
+				continue;
+			float d = t.dist[u] + weight(in, e, v);
+			if (t.dist[u] != Graph.INFINITY && d < best) {
+				best = d;
+				from = u;
+			}
+		}
+		if (from < 0)
+			return 0;
+		t.dist[v.id] = best;
+		t.prev[v.id] = from;
+		heap.insert(v.id, best);
+		return propagate(t);
+	}
+
+	// Dijkstra from whatever is queued, lowering distances where it can.
+	// Returns the no. of vertices settled
+	private int propagate(Tree t)
+	{
+		int touched = 0;
+		while (!heap.isEmpty()) {
+			Vertex x = Graph.vertexList.get(heap.pop());
+			touched++;
+			float dx = t.dist[x.id];
+			Adjacency out = x.adj;
+			for (int e = 0; e < out.slots(); e++) {
+				int w = out.end(e);
+				if (w < 0)
+					continue;
+				float d = dx + weight(out, e, Graph.vertexList.get(w));
+				if (d < t.dist[w]) {
+					t.dist[w] = d;
+					t.prev[w] = x.id;
+					heap.offer(w, d);
+				}
+			}
+		}
+		return touched;
+	}
+
+	// The tree edge into root got worse: re-route the subtree below root
+	private int cut(Tree t, Vertex root)
+	{
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			stamp = 1;
+		}
+		// ***collect the subtree; children of x are the heads whose prev is x
+		int size = 0;
+		subtree[size++] = root.id;
+		mark[root.id] = stamp;
+		for (int i = 0; i < size; i++) {
+			int x = subtree[i];
+			Adjacency out = Graph.vertexList.get(x).adj;
+			for (int e = 0; e < out.slots(); e++) {
+				int w = out.end(e);
+				if (w < 0)
+					continue;
+				if (mark[w] != stamp && t.prev[w] == x) {
+					mark[w] = stamp;
+					subtree[size++] = w;
+				}
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			t.dist[subtree[i]] = Graph.INFINITY;
+			t.prev[subtree[i]] = -1;
+		}
+
+		// ***each cut vertex starts from its best offer from outside the subtree
+		heap.clear();
+		for (int i = 0; i < size; i++) {
+			int x = subtree[i];
+			float best = Graph.INFINITY;
+			int from = -1;
+			Vertex head = Graph.vertexList.get(x);
+			Adjacency in = head.radj;
+			for (int e = 0; e < in.slots(); e++) {
+				int u = in.end(e);
+				if (u < 0 || mark[u] == stamp || t.dist[u] == Graph.INFINITY)
+					continue;
+				float d = t.dist[u] + weight(in, e, head);
+				if (d < best) {
+					best = d;
+					from = u;
+				}
+			}
+			if (from >= 0) {
+				t.dist[x] = best;
+				t.prev[x] = from;
+				heap.insert(x, best);
+			}
+		}
+		propagate(t);
+		return size;
+	}
+}
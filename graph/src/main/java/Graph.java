@@ -0,0 +1,1512 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Graph class:
+// ******************PUBLIC OPERATIONS*******************************************************************
+// void addEdge( String s, String d, float f )---->adds two directional weighted edges to graph
+// void addedge( String s, String d, float f )---->adds unidirectional weighted edges to graph
+// void deleteedge(String t, String h)----->delete edges from graph
+// void vertexdown(String s)---->makes vertex of the graph inactive
+// void vertexup(String s)---->makes vertex of the graph active
+// void edgedown(String s, String d)---->an edge of a graph made to down
+// void edgeup(String s, String d)---->makes edge of a graph active which is inactive before
+// void reachable_vertices()---->finds all the reachable vertices from all the vertices of graph
+// void printGraph()---->prints all the vertices with its corresponding edges of the graph
+// void printPath( String w )---->Prints paths between two vertices
+// void weighted( String s )---->Calculates shortest path between two vertices using dijikistra algorithm
+// CsrGraph freeze()---->freezes the graph into a compact CSR snapshot
+// CsrGraph snapshot()---->CSR snapshot of the current graph, re-frozen only after changes
+// ShortestPathResult shortestPath( String s, String d )---->thread-safe path query on the snapshot
+// void path( CsrGraph g, CharSequence s, CharSequence d, PrintWriter o )---->prints the shortest path between two vertices
+// CsrGraph publish()---->hands the current snapshot to lock-free readers
+// void setSearch( String s )---->selects dijkstra, bidir or astar for path queries
+// void setHeuristic( String h )---->selects the euclidean, haversine or alt A* heuristic
+// void loadCoordinates( String f )---->reads vertex coordinates for the A* heuristics
+// void buildHierarchy()---->contraction hierarchy preprocessing for path queries
+// void addHotSource( String s )---->keeps the shortest path tree of s up to date under changes
+// void setTreeCache( int n )---->memoizes the shortest path trees of n sources
+// void setParallelTrees( Float d, int t )---->computes whole trees by parallel delta-stepping
+// DistanceMatrix distanceMatrix( List s, List t )---->parallel many-to-many distance table
+// void matrix( CsrGraph g, String s, String t, PrintWriter o )---->prints the distance table between two vertex lists
+// void setStorage( OffHeapStorage s )---->keeps the snapshot arrays in direct memory or mapped files
+// void setOrder( String m )---->relabels snapshots by bfs, rcm or hilbert order for cache locality
+// void load( String f )---->replaces the graph with an edge file or a saved snapshot
+// void save( String f )---->writes the current snapshot, with its states, to a file
+// void checkpoint()---->saves a snapshot and truncates the write-ahead log
+// ******************ERRORS*******************************************************************************
+// Some error checking is performed to make sure graph is ok,
+// and to make sure graph satisfies properties needed by each
+// algorithm. Exceptions are thrown if errors are detected.
+
+public class Graph
+{
+	public static final int INFINITY = Integer.MAX_VALUE;
+	public static NameDictionary names = new NameDictionary(); // vertex name <-> id
+	public static List<Vertex> vertexList = new ArrayList<Vertex>();
+	public static long[] vertexDown = new long[0]; // bit per vertex id: down
+
+	private long version = 0;          // bumped by every change to the graph
+	private CsrGraph snapshot;         // CSR snapshot taken at snapshotVersion
+	private long snapshotVersion = -1;
+	private boolean materialized = true; // false while only the snapshot holds a loaded file
+	private volatile QueryState current;   // query state of snapshot, null after a setting changed
+	private volatile QueryState published; // query state lock-free readers use, see publish
+
+	private String search = "bidir";        // dijkstra/bidir/astar, used by path
+	private String heuristicName;           // euclidean/haversine/alt, for astar
+	private Map<String, double[]> coordinates;
+
+	private boolean useHierarchy = false;   // answer path from a contraction hierarchy
+	private volatile ContractionHierarchy hierarchy;
+	private final AtomicBoolean hierarchyBuilding = new AtomicBoolean();
+	private volatile ExecutorService hierarchyBuilder;
+	private volatile CsrGraph hierarchyFailed; // snapshot the last rebuild failed on
+
+	private volatile Reachability reachability; // SCC reachability of a snapshot
+
+	private volatile DynamicShortestPaths dynamic; // maintained trees of hot sources
+	private String hotSources;              // --hot option, applied after loading
+
+	private volatile ShortestPathTreeCache treeCache; // per-source trees, null when off
+	private volatile DeltaStepping parallelTrees;     // whole trees by delta-stepping, null for Dijkstra
+	private String delta;                   // --delta option, "" for the default width
+	private int threads;                    // --threads option, 0 for the common pool
+	private ForkJoinPool treePool;          // pool of parallelTrees, null for the common pool
+
+	private MutationLog log;                // write-ahead log, null when off
+	private String walBase;                 // --wal option: walBase.wal, walBase.snap
+	private long checkpointEvery = 1000000; // changes between automatic checkpoints
+	private long flushMillis = 2;           // longest wait before a log batch is synced
+
+	private OffHeapStorage storage;         // snapshot arrays off the heap, null on the heap
+	private String order;                   // bfs/rcm/hilbert relabeling, "" for the default, null for name order
+	private boolean verify;                 // --verify: deep-check snapshots on load
+
+	private String script;                  // batch commands, "-" for stdin; null prompts
+	private String serve;                   // --serve option: port or unix:/path
+
+	// Autoflushing writer on System.out, for output outside of a command
+	static PrintWriter stdout()
+	{
+		return new PrintWriter(System.out, true);
+	}
+
+	// Everything a path query reads, built under the lock for one snapshot
+	// and never changed afterwards, so it is swapped in as one reference:
+	// the snapshot and the version it was taken at, the hot trees over it,
+	// the A* heuristic for it and the search settings. The heuristic alone
+	// is built later, by the first A* query on the snapshot, so a writer
+	// publishing a stream of changes does not run the landmark
+	// preprocessing, O(landmarks (V + E)), for snapshots nobody searches
+	private static final class QueryState
+	{
+		final CsrGraph graph;
+		final long version;                      // -1 once graph is no longer the latest
+		final Map<String, ShortestPathTree> hot; // by source name, null without hot sources
+		final ShortestPathTreeCache treeCache;
+		private final String heuristicName;      // settings the heuristic is built with
+		private final Map<String, double[]> coordinates;
+		private volatile Heuristic heuristic;    // null until heuristic() first runs
+		final String search;
+		final DeltaStepping parallelTrees;
+		final boolean useHierarchy;
+
+		QueryState(Graph g, CsrGraph graph, long version, Map<String, ShortestPathTree> hot) {
+			this.graph = graph;
+			this.version = version;
+			this.hot = hot;
+			treeCache = version >= 0 ? g.treeCache : null;
+			heuristicName = g.heuristicName;
+			coordinates = g.coordinates;
+			search = g.search;
+			parallelTrees = g.parallelTrees;
+			useHierarchy = g.useHierarchy;
+		}
+
+		// The A* heuristic of graph; concurrent first queries build it once
+		Heuristic heuristic()
+		{
+			Heuristic h = heuristic;
+			if (h == null) {
+				synchronized (this) {
+					h = heuristic;
+					if (h == null)
+						heuristic = h = buildHeuristic(graph, heuristicName, coordinates);
+				}
+			}
+			return h;
+		}
+	}
+
+	/**
+	 * Registers a new vertex under the next dense id, which is also the id
+	 * of its name in names.
+	 */
+	private static Vertex addVertex(String name)
+	{
+		Vertex v = new Vertex(name);
+		v.id = vertexList.size();
+		vertexList.add(v);
+		if (vertexDown.length < CsrGraph.words(vertexList.size()))
+			vertexDown = Arrays.copyOf(vertexDown, Math.max(16, 2 * vertexDown.length));
+		names.intern(name);
+		return v;
+	}
+
+	/** The vertex of a name, or null. Allocates nothing. */
+	static Vertex vertex(CharSequence name)
+	{
+		int id = names.find(name);
+		return id < 0 ? null : vertexList.get(id);
+	}
+
+	/**
+	 * Add a new weighted two directional edge to the graph.
+	 */
+	public synchronized void addEdge(String sourceName, String destName, float wt)
+	{
+		materialize();
+
+		Vertex sourceVertex;
+		Vertex destinationVertex;
+
+		sourceVertex = vertex(sourceName);
+		destinationVertex = vertex(destName);
+
+		if (sourceVertex == null) {
+			// System.out.println("Provided source is not present");
+			sourceVertex = addVertex(sourceName);
+		}
+		if (destName.equals(sourceName)) {
+			destinationVertex = sourceVertex;
+		}
+		if (destinationVertex == null) {
+			// System.out.println("Provided dest is not present");
+			destinationVertex = addVertex(destName);
+		}
+		link(sourceVertex, destinationVertex, wt);
+		link(destinationVertex, sourceVertex, wt);
+		edgeChanged(sourceVertex, destinationVertex);
+		edgeChanged(destinationVertex, sourceVertex);
+	}
+
+	// Bumps the topology version after the edges tail -> head changed and
+	// lets the derived state that can be repaired in place know about it
+	private void edgeChanged(Vertex tail, Vertex head)
+	{
+		version++;
+		if (dynamic != null)
+			dynamic.edgeChanged(tail, head);
+		if (treeCache != null)
+			treeCache.edgeChanged(tail, head, version);
+	}
+
+	// Same as edgeChanged, after v went down or came back up
+	private void vertexChanged(Vertex v)
+	{
+		version++;
+		if (dynamic != null) {
+			if (v.isDown())
+				dynamic.vertexDown(v);
+			else
+				dynamic.vertexUp(v);
+		}
+		if (treeCache != null)
+			treeCache.vertexChanged(v, version);
+	}
+
+	// Writes a change that took effect to the write-ahead log, if there is
+	// one, and checkpoints once enough changes piled up
+	private void logChange(byte op, CharSequence a, CharSequence b, float weight)
+	{
+		if (log == null)
+			return;
+		log.append(op, a.toString(), b.toString(), weight);
+		if (log.getSinceCheckpoint() >= checkpointEvery)
+			checkpoint(stdout());
+	}
+
+	/**
+	 * Opens the write-ahead log walBase.wal and replays the changes it holds
+	 * over the graph loaded from the matching snapshot walBase.snap (or the
+	 * edge file when there is no snapshot yet).
+	 */
+	public synchronized void openLog(String base) throws IOException
+	{
+		walBase = base;
+		String snap = base + ".snap";
+		int generation = Files.exists(Paths.get(snap)) ? GraphSnapshot.generation(snap) : 0;
+		final long[] replayed = new long[1];
+		log = MutationLog.open(base + ".wal", generation, flushMillis,
+				(op, a, b, weight) -> {
+					replay(op, a, b, weight);
+					replayed[0]++;
+				});
+		if (replayed[0] > 0)
+			System.err.println("Recovered " + replayed[0] + " changes from " + base + ".wal");
+		final MutationLog opened = log;
+		Runtime.getRuntime().addShutdownHook(new Thread(opened::close));
+	}
+
+	// Applies one logged change during recovery, before the log is attached
+	private void replay(byte op, String a, String b, float weight)
+	{
+		switch (op) {
+		case MutationLog.ADD_EDGE:
+			addedge(a, b, weight);
+			break;
+		case MutationLog.DELETE_EDGE:
+			deleteedge(a, b);
+			break;
+		case MutationLog.EDGE_DOWN:
+			edgedown(a, b);
+			break;
+		case MutationLog.EDGE_UP:
+			edgeup(a, b);
+			break;
+		case MutationLog.VERTEX_DOWN:
+			vertexdown(a);
+			break;
+		case MutationLog.VERTEX_UP:
+			vertexup(a);
+			break;
+		default:
+			throw new GraphException("Unknown log record " + op);
+		}
+	}
+
+	/**
+	 * Saves the graph to walBase.snap and starts an empty write-ahead log, so
+	 * recovery only replays the changes made after this point.
+	 */
+	public synchronized void checkpoint(PrintWriter out)
+	{
+		if (log == null) {
+			out.println("Write-ahead log is off");
+			return;
+		}
+		long start = System.nanoTime();
+		int next = log.getGeneration() + 1;
+		try {
+			log.sync();
+			GraphSnapshot.save(snapshot(), walBase + ".snap", next);
+			log.checkpoint(next);
+		} catch (IOException e) {
+			throw new GraphException("Checkpoint failed: " + e.getMessage());
+		}
+		System.err.println("Checkpoint " + next + " in "
+				+ (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	/**
+	 * Blocks until every change so far is in the write-ahead log on disk;
+	 * returns at once when there is no log.
+	 */
+	public void syncLog() throws IOException
+	{
+		MutationLog l = log;
+		if (l != null)
+			l.sync();
+	}
+
+	/**
+	 * Current topology version; every change to the graph increases it.
+	 */
+	public synchronized long getVersion()
+	{
+		return version;
+	}
+
+	// Adds an up edge tail -> head to the adjacency of both ends
+	private static void link(Vertex tail, Vertex head, float weight)
+	{
+		tail.adj.add(head.id, weight);
+		head.radj.add(tail.id, weight);
+	}
+
+	/**
+	 * Unlinks the first edge tail -> head from both the adjacency of tail and
+	 * the reverse adjacency of head. Returns false if there is none.
+	 */
+	private static boolean removeEdge(Vertex tail, Vertex head)
+	{
+		int slot = tail.adj.first(head.id);
+		if (slot < 0)
+			return false;
+		tail.adj.remove(slot);
+		head.radj.remove(head.radj.first(tail.id));
+		return true;
+	}
+
+	/**
+	 * Adds a new weighted uni-directional edge to the graph from the command
+	 * read from arguments/console.
+	 */
+	public synchronized void addedge(CharSequence tail, CharSequence head, Float time)
+	{
+		materialize();
+		putEdge(tail, head, time);
+		edgeChanged(vertex(tail), vertex(head));
+		logChange(MutationLog.ADD_EDGE, tail, head, time);
+		// System.out.println("edge added/modified");
+	}
+
+	// Adds or replaces the edge tail -> head, adding missing vertices
+	private void putEdge(CharSequence tail, CharSequence head, float time)
+	{
+		Vertex edgetail;
+		Vertex edgehead;
+
+		edgetail = vertex(tail);
+		edgehead = vertex(head);
+
+		if (edgetail == null) {
+			// System.out.println("Provided tail is not present in graph and added now");
+			edgetail = addVertex(tail.toString());
+		}
+		if (CharSequence.compare(head, tail) == 0) {
+			edgehead = edgetail;
+		}
+		if (edgehead == null) {
+			// System.out.println("Provided head is not present in graph and added now");
+			edgehead = addVertex(head.toString());
+		}
+		if (edgetail != null || edgehead != null) {
+			removeEdge(edgetail, edgehead);
+		}
+		link(edgetail, edgehead, time);
+	}
+
+	/** Deletes an edge from the graph **/
+	public synchronized void deleteedge(CharSequence tail, CharSequence head, PrintWriter out)
+	{
+		materialize();
+		if (unlinkEdge(tail, head, out)) {
+			edgeChanged(vertex(tail), vertex(head));
+			logChange(MutationLog.DELETE_EDGE, tail, head, 0);
+		}
+	}
+
+	// Removes the edge tail -> head; returns false if there was none
+	private boolean unlinkEdge(CharSequence tail, CharSequence head, PrintWriter out)
+	{
+		Vertex edgetail;
+		Vertex edgehead;
+
+		edgetail = vertex(tail);
+		edgehead = vertex(head);
+
+		if (edgetail == null) {
+			out.println("Provided tail is not present in graph");
+		} else if (edgehead == null) {
+			out.println("Provided head is not present in graph");
+		} else {
+			return removeEdge(edgetail, edgehead);
+			// out.println("edge from "+tail+" to  "+head+" is removed");
+		}
+		return false;
+	}
+
+	// Same as deleteedge(..., out), printing to System.out
+	public void deleteedge(String tail, String head)
+	{
+		deleteedge(tail, head, stdout());
+	}
+
+	// *****This method makes a vertex of the graph down/inactive
+	public synchronized void vertexdown(CharSequence downvertex, PrintWriter out)
+	{
+		materialize();
+		if (setVertexDown(downvertex, true, out)) {
+			vertexChanged(vertex(downvertex));
+			logChange(MutationLog.VERTEX_DOWN, downvertex, "", 0);
+		}
+	}
+
+	// Same as vertexdown(..., out), printing to System.out
+	public void vertexdown(String downvertex)
+	{
+		vertexdown(downvertex, stdout());
+	}
+
+	// ****This method makes an inactive/down edge active/up
+	public synchronized void vertexup(CharSequence upvertex, PrintWriter out)
+	{
+		materialize();
+		if (setVertexDown(upvertex, false, out)) {
+			vertexChanged(vertex(upvertex));
+			logChange(MutationLog.VERTEX_UP, upvertex, "", 0);
+		}
+	}
+
+	// Same as vertexup(..., out), printing to System.out
+	public void vertexup(String upvertex)
+	{
+		vertexup(upvertex, stdout());
+	}
+
+	// Takes vertex name down or brings it back up; returns false if it is
+	// missing or already in that state
+	private boolean setVertexDown(CharSequence name, boolean down, PrintWriter out)
+	{
+		Vertex v = vertex(name);
+
+		if (v == null) {
+			out.println("Provided vertex is not present in graph");
+		} else if (v.isDown() == down) {
+			out.println(down ? "Provided vertex already down" : "Provided vertex already active");
+		} else {
+			v.setVstate(down);
+			return true;
+		}
+		return false;
+	}
+
+	// ****This method makes an edge of the graph down/inactive
+	public synchronized void edgedown(CharSequence tailvertex, CharSequence headvertex,
+			PrintWriter out)
+	{
+		materialize();
+		if (setEdgeDown(tailvertex, headvertex, true, out)) {
+			edgeChanged(vertex(tailvertex), vertex(headvertex));
+			logChange(MutationLog.EDGE_DOWN, tailvertex, headvertex, 0);
+		}
+	}
+
+	// Same as edgedown(..., out), printing to System.out
+	public void edgedown(String tailvertex, String headvertex)
+	{
+		edgedown(tailvertex, headvertex, stdout());
+	}
+
+	// *****This method makes an inactive/down edge of the graph active/up
+	public synchronized void edgeup(CharSequence tailvertex, CharSequence headvertex,
+			PrintWriter out)
+	{
+		materialize();
+		if (setEdgeDown(tailvertex, headvertex, false, out)) {
+			edgeChanged(vertex(tailvertex), vertex(headvertex));
+			logChange(MutationLog.EDGE_UP, tailvertex, headvertex, 0);
+		}
+	}
+
+	// Same as edgeup(..., out), printing to System.out
+	public void edgeup(String tailvertex, String headvertex)
+	{
+		edgeup(tailvertex, headvertex, stdout());
+	}
+
+	// Takes the edges tail -> head down or brings them back up, finding them
+	// through the adjacency index of tail. Returns false if none changed
+	private boolean setEdgeDown(CharSequence tailvertex, CharSequence headvertex, boolean down,
+			PrintWriter out)
+	{
+		Vertex edgetail;
+		Vertex edgehead;
+
+		edgetail = vertex(tailvertex);
+		edgehead = vertex(headvertex);
+
+		if (edgetail == null) {
+			out.println("Provided tail is not present in graph");
+			return false;
+		} else if (edgehead == null) {
+			out.println("Provided head is not present in graph");
+			return false;
+		}
+		boolean changed = false;
+		// ***the k-th edge tail -> head out of tail is the k-th one into head
+		int r = edgehead.radj.first(edgetail.id);
+		for (int e = edgetail.adj.first(edgehead.id); e >= 0; e = edgetail.adj.next(e)) {
+			if (edgetail.adj.isDown(e) == down) {
+				out.println(down ? "The provided edge is already down"
+						: "The provided edge is already in  active state");
+			} else {
+				edgetail.adj.setDown(e, down);
+				edgehead.radj.setDown(r, down);
+				changed = true;
+			}
+			r = edgehead.radj.next(r);
+		}
+		return changed;
+	}
+
+	/**
+	 * Applies every change of batch in order, with the same checks and
+	 * messages as the single commands, under one lock. The version moves
+	 * once for the whole batch, so the snapshot, reachability, hierarchy,
+	 * hot trees and tree cache are rebuilt once at the end instead of being
+	 * repaired after every change. Returns the no. of changes that took
+	 * effect.
+	 */
+	public synchronized int apply(MutationBatch batch, PrintWriter out)
+	{
+		materialize();
+		boolean[] effective = new boolean[batch.size()];
+		int changed = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			String a = batch.first(i);
+			String b = batch.second(i);
+			boolean done;
+			switch (batch.op(i)) {
+			case MutationLog.ADD_EDGE:
+				putEdge(a, b, batch.weight(i));
+				done = true;
+				break;
+			case MutationLog.DELETE_EDGE:
+				done = unlinkEdge(a, b, out);
+				break;
+			case MutationLog.EDGE_DOWN:
+				done = setEdgeDown(a, b, true, out);
+				break;
+			case MutationLog.EDGE_UP:
+				done = setEdgeDown(a, b, false, out);
+				break;
+			case MutationLog.VERTEX_DOWN:
+				done = setVertexDown(a, true, out);
+				break;
+			case MutationLog.VERTEX_UP:
+				done = setVertexDown(a, false, out);
+				break;
+			default:
+				throw new GraphException("Unknown change " + batch.op(i));
+			}
+			effective[i] = done;
+			if (done)
+				changed++;
+		}
+		if (changed == 0)
+			return 0;
+
+		version++;
+		if (dynamic != null)
+			dynamic.recomputeAll();
+		if (treeCache != null)
+			treeCache.clear();
+		if (log != null) {
+			for (int i = 0; i < batch.size(); i++) {
+				if (effective[i])
+					log.append(batch.op(i), batch.first(i), batch.second(i), batch.weight(i));
+			}
+			if (log.getSinceCheckpoint() >= checkpointEvery)
+				checkpoint(stdout());
+		}
+		return changed;
+	}
+
+	/****
+	 * Based on the state of the graph this method finds all the reachable
+	 * vertices from all the vertices of the graph. The strongly connected
+	 * components of the up part of the graph are computed once per snapshot
+	 * in O(V+E), after which every vertex's list is read off the reachable
+	 * set of its component.
+	 */
+	public void reachable_vertices(CsrGraph csr, PrintWriter out)
+	{
+		reachability(csr).print(out);
+	}
+
+	// Same as reachable_vertices(csr, out) on the current snapshot
+	public void reachable_vertices(PrintWriter out)
+	{
+		reachable_vertices(snapshot(), out);
+	}
+
+	// Same as reachable_vertices(out), printing to System.out
+	public void reachable_vertices()
+	{
+		reachable_vertices(stdout());
+	}
+
+	// Reachability for a snapshot, kept until the next snapshot comes along.
+	// Two readers may both compute it at once; either result is fine
+	private Reachability reachability(CsrGraph csr)
+	{
+		Reachability r = reachability;
+		if (r == null || r.getGraph() != csr) {
+			r = new Reachability(csr);
+			reachability = r;
+		}
+		return r;
+	}
+
+	/**
+	 * This method with print all the vertices and their corresponding edges
+	 * along with their states
+	 * 
+	 */
+	public void printGraph(PrintWriter out)
+	{
+		snapshot().printGraph(out);
+	}
+
+	// Same as printGraph(out), printing to System.out
+	public void printGraph()
+	{
+		printGraph(stdout());
+	}
+
+	/**
+	 * 
+	 * It calls recursive routine to print shortest path to destNode after
+	 * Dijikistra shortest path algorithm has run.
+	 */
+	public void printPath(String dest)
+	{
+		materialize();
+		Vertex w = vertex(dest);
+		if (w == null)
+			System.out.println("Destination vertex not found");
+		else if (w.dist == INFINITY)
+			System.out.println(dest + " is unreachable");
+		else {
+
+			// String v = String.valueOf(w);
+			printPath(w);
+			System.out.println(" " + w.dist);
+			// System.out.println( );
+		}
+	}
+
+	//
+
+	/**
+	 * Recursive routine to print shortest path to dest after running shortest
+	 * path algorithm. The path is known to exist.
+	 */
+	private void printPath(Vertex dest)
+	{
+		if (dest.prev != null) {
+			printPath(dest.prev);
+			System.out.print("  ");
+		}
+		System.out.print(dest.name);
+	}
+
+	/**
+	 * Initializes the vertex output info prior to running any shortest path
+	 * algorithm.
+	 */
+	private void clearAll()
+	{
+		for (Vertex v : vertexList) {
+			v.reset();
+
+		}
+	}
+
+	/**
+	 * Single-source weighted shortest-path algorithm - Dijikistra algorithm
+	 * This algorithm will calculate the smallest path distance between two
+	 * vertices of the grpah
+	 */
+	public void weighted(String startName)
+	{
+		materialize();
+		clearAll();
+
+		// System.out.println("clear completd");
+		Vertex startvertex = vertex(startName);
+		// System.out.println(startvertex);
+		if (startvertex == null) {
+			System.out.println("Start vertex not found");
+		}
+
+		else if (startvertex.isDown()) {
+			System.out.println("This path cannot be there as " + startName
+					+ " is down");
+		} else {
+			// ***An indexed d-ary heap maintains the vertices of the graph
+			// ***based on their distances from the source vertex. A vertex
+			// ***enters the heap at most once and its key is lowered in place
+			DaryHeap p = new DaryHeap(vertexList.size());
+			long scanned = 0;
+
+			startvertex.dist = 0;
+			p.insert(startvertex.id, 0);
+			while (!p.isEmpty()) {
+				Vertex v = vertexList.get(p.pop());
+
+				Adjacency adj = v.adj;
+				if (Stats.ENABLED)
+					scanned += adj.slots();
+				for (int e = 0; e < adj.slots(); e++) {
+					// ***holes, down edges and down heads are one bit test each
+					int w = adj.end(e);
+					if (w < 0 || adj.isDown(e) || CsrGraph.get(vertexDown, w))
+						continue;
+					Vertex v2 = vertexList.get(w);
+
+					float distance = v.dist + adj.weight(e);
+					if (v2.dist > distance) {
+						v2.dist = distance;
+						v2.prev = v;
+						p.offer(v2.id, distance);
+					}
+				}
+			}
+			if (Stats.ENABLED)
+				Stats.search(p, scanned);
+		}
+	}
+
+	/**
+	 * Freezes the current vertices and edges into a compact, int-indexed CSR
+	 * snapshot. The snapshot does not see later changes to the graph.
+	 */
+	public CsrGraph freeze()
+	{
+		materialize();
+		CsrGraph csr = CsrGraph.build(names, vertexList);
+		if (order != null)
+			return VertexOrder.apply(csr, orderMethod(), coordinates, storage);
+		return storage != null ? storage.copyOf(csr) : csr;
+	}
+
+	/**
+	 * Builds the snapshots loaded or frozen from now on in storage, off the
+	 * heap, or on the heap again when storage is null.
+	 */
+	public synchronized void setStorage(OffHeapStorage storage)
+	{
+		this.storage = storage;
+	}
+
+	/**
+	 * Relabels the snapshots loaded or frozen from now on by a VertexOrder
+	 * method, so that neighbours get nearby ids; empty picks hilbert when
+	 * coordinates are loaded and rcm otherwise, null keeps ids in name order.
+	 */
+	public synchronized void setOrder(String method)
+	{
+		if (method != null && !method.isEmpty()
+				&& !Arrays.asList(VertexOrder.METHODS).contains(method))
+			throw new GraphException("Unknown vertex ordering " + method
+					+ "; use " + String.join(", ", VertexOrder.METHODS));
+		order = method;
+	}
+
+	private String orderMethod()
+	{
+		return order.isEmpty() ? VertexOrder.defaultMethod(coordinates) : order;
+	}
+
+	/**
+	 * Replaces the graph with the contents of file: either a snapshot written
+	 * by save, which is memory-mapped as it is, or an edge file, which is
+	 * parsed straight into a CSR snapshot, relabeled when an order is set.
+	 * The Vertex objects and adjacency are only created once something needs
+	 * the mutable graph, usually the first change. Hot sources that are still
+	 * present stay hot.
+	 */
+	public synchronized void load(String file) throws IOException
+	{
+		CsrGraph csr;
+		if (GraphSnapshot.isSnapshot(file))
+			csr = GraphSnapshot.load(file, verify);
+		else
+			csr = GraphLoader.load(file, ForkJoinPool.commonPool(), storage);
+		if (order != null) {
+			long started = System.nanoTime();
+			String method = orderMethod();
+			csr = VertexOrder.apply(csr, method, coordinates, storage);
+			System.err.println("Reordered " + csr.vertexCount() + " vertices by " + method
+					+ " in " + (System.nanoTime() - started) / 1000000 + " ms");
+		}
+		List<String> hot = dynamic == null ? null : dynamic.getSources();
+		names = new NameDictionary();
+		vertexList.clear();
+		vertexDown = new long[0];
+		dynamic = null;
+		version++;
+		snapshot = csr;
+		snapshotVersion = version;
+		current = null;
+		materialized = false;
+		if (hot != null) {
+			for (String source : hot) {
+				if (csr.indexOf(source) >= 0)
+					addHotSource(source, stdout());
+			}
+		}
+		if (log != null)
+			checkpoint(stdout());
+	}
+
+	/**
+	 * Writes the current snapshot, including every vertex and edge state
+	 * changed at runtime, to file in the binary snapshot format.
+	 */
+	public void save(String file)
+	{
+		try {
+			GraphSnapshot.save(snapshot(), file);
+		} catch (IOException e) {
+			throw new GraphException("Cannot save " + file + ": " + e.getMessage());
+		}
+	}
+
+	// Creates the Vertex objects and adjacency of a graph that so far only
+	// exists as the snapshot it was loaded into
+	private synchronized void materialize()
+	{
+		if (materialized)
+			return;
+		materialized = true;
+		CsrGraph csr = snapshot;
+		int n = csr.vertexCount();
+		for (int v = 0; v < n; v++) {
+			Vertex vertex = addVertex(csr.name(v));
+			vertex.setVstate(csr.isVertexDown(v));
+		}
+		for (int v = 0; v < n; v++) {
+			Vertex tail = vertexList.get(v);
+			for (int e = csr.edgeStart(v); e < csr.edgeEnd(v); e++) {
+				Vertex head = vertexList.get(csr.target(e));
+				link(tail, head, csr.weight(e));
+				if (csr.isEdgeDown(e)) {
+					tail.adj.setDown(tail.adj.slots() - 1, true);
+					head.radj.setDown(head.radj.slots() - 1, true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a CSR snapshot of the current graph, re-freezing it only when
+	 * the graph changed since the last call. The snapshot is immutable, so
+	 * any number of threads can query it at once.
+	 */
+	public synchronized CsrGraph snapshot()
+	{
+		if (snapshot == null || snapshotVersion != version) {
+			snapshot = freeze();
+			snapshotVersion = version;
+		}
+		return snapshot;
+	}
+
+	// Query state of csr without locking when it is the published or the
+	// current one; otherwise built under the lock, with nothing but the
+	// heuristic when csr is no longer the latest snapshot
+	private QueryState state(CsrGraph csr)
+	{
+		QueryState q = published;
+		if (q != null && q.graph == csr)
+			return q;
+		q = current;
+		if (q != null && q.graph == csr)
+			return q;
+		return currentState(csr);
+	}
+
+	private synchronized QueryState currentState(CsrGraph csr)
+	{
+		CsrGraph latest = snapshot();
+		QueryState q = current;
+		if (q == null || q.graph != latest) {
+			q = new QueryState(this, latest, snapshotVersion,
+					dynamic == null ? null : dynamic.trees(latest));
+			current = q;
+		}
+		return csr == latest ? q : new QueryState(this, csr, -1, null);
+	}
+
+	/**
+	 * Makes the current snapshot the one published() returns, together with
+	 * the hot trees of that snapshot. A single writer calls
+	 * this after each batch of changes; readers only ever see whole,
+	 * immutable snapshots and never wait for the writer (RCU).
+	 */
+	public synchronized CsrGraph publish()
+	{
+		QueryState q = currentState(snapshot());
+		published = q;
+		return q.graph;
+	}
+
+	/** The snapshot last published, read without taking any lock. */
+	public CsrGraph published()
+	{
+		QueryState q = published;
+		return q != null ? q.graph : publish();
+	}
+
+	/**
+	 * Finds the shortest path from source to dest on the current snapshot.
+	 * Unlike weighted it writes nothing into the vertices, so concurrent
+	 * queries do not interfere with each other.
+	 */
+	public ShortestPathResult shortestPath(String source, String dest)
+	{
+		CsrGraph csr = snapshot();
+		int s = csr.indexOf(source);
+		int t = csr.indexOf(dest);
+		if (s < 0 || t < 0 || csr.isVertexDown(s))
+			return ShortestPathResult.unreachable(source, dest, 0);
+		return query(state(csr), s, t);
+	}
+
+	// Runs the point-to-point search selected with setSearch. Everything it
+	// reads comes from q, so it never sees the graph the writer is changing
+	private ShortestPathResult query(QueryState q, int s, int t)
+	{
+		CsrGraph csr = q.graph;
+		if (q.hot != null) {
+			ShortestPathTree tree = q.hot.get(csr.name(s));
+			if (tree != null)
+				return tree.pathTo(t);
+		}
+		if (q.treeCache != null) {
+			ShortestPathTree tree = q.treeCache.get(csr.name(s), q.version);
+			if (tree == null) {
+				tree = tree(q, s);
+				q.treeCache.put(csr.name(s), tree, q.version);
+			}
+			return tree.pathTo(tree.getGraph().indexOf(csr.name(t)));
+		}
+		if (q.useHierarchy) {
+			ContractionHierarchy ch = currentHierarchy(csr);
+			if (ch != null)
+				return ch.query(s, t);
+		}
+		if (q.search.equals("dijkstra"))
+			return csr.shortestPath(s, t);
+		if (q.search.equals("delta"))
+			return tree(q, s).pathTo(t);
+		if (q.search.equals("astar"))
+			return csr.astar(s, t, q.heuristic());
+		return csr.bidirectional(s, t);
+	}
+
+	// Whole shortest path tree of s, in parallel when delta-stepping is on
+	private static ShortestPathTree tree(QueryState q, int s)
+	{
+		DeltaStepping d = q.parallelTrees;
+		return d != null ? d.tree(q.graph, s) : q.graph.weighted(s);
+	}
+
+	/**
+	 * Selects the search used by path: dijkstra, bidir (the default), astar
+	 * or delta (the whole tree of the source by parallel delta-stepping).
+	 * All of them find the same distance, but where several paths are
+	 * equally short, bidir (like astar and the hierarchy) may print another
+	 * one of them than dijkstra does, since it meets the two searches
+	 * wherever they first touch.
+	 */
+	public synchronized void setSearch(String search)
+	{
+		if (!search.equals("dijkstra") && !search.equals("bidir")
+				&& !search.equals("astar") && !search.equals("delta"))
+			throw new GraphException("Unknown search " + search);
+		this.search = search;
+		current = null;
+	}
+
+	/**
+	 * Selects the A* heuristic: euclidean or haversine (both need
+	 * coordinates) or alt. Without a choice, euclidean is used when
+	 * coordinates were loaded for every vertex and alt otherwise. With
+	 * coordinates for only some vertices euclidean and haversine estimate 0.
+	 */
+	public synchronized void setHeuristic(String name)
+	{
+		if (!name.equals("euclidean") && !name.equals("haversine")
+				&& !name.equals("alt"))
+			throw new GraphException("Unknown heuristic " + name);
+		if (!name.equals("alt") && coordinates == null)
+			throw new GraphException("Heuristic " + name + " needs a coordinates file");
+		heuristicName = name;
+		current = null;
+	}
+
+	/**
+	 * Loads vertex coordinates ("name x y" lines) for the A* heuristics.
+	 */
+	public synchronized void loadCoordinates(String file) throws IOException
+	{
+		coordinates = CoordinateHeuristic.load(file);
+		current = null;
+	}
+
+	/**
+	 * Distance table between every vertex of sources and every vertex of
+	 * targets, computed in parallel on the common fork-join pool.
+	 */
+	public DistanceMatrix distanceMatrix(List<String> sources, List<String> targets)
+	{
+		CsrGraph csr = snapshot();
+		return DistanceMatrix.compute(csr, ids(csr, sources), ids(csr, targets),
+				ForkJoinPool.commonPool(), null);
+	}
+
+	/**
+	 * Prints the distance table of the snapshot csr between two comma
+	 * separated vertex lists ("*" for every vertex). Rows are printed as soon as they are ready,
+	 * one per source, with unreachable entries shown as "inf".
+	 */
+	public void matrix(final CsrGraph csr, String sourceList, String targetList,
+			PrintWriter out)
+	{
+		if (targetList.isEmpty())
+			targetList = sourceList;
+		final int[] sources;
+		final int[] targets;
+		try {
+			sources = ids(csr, names(csr, sourceList));
+			targets = ids(csr, names(csr, targetList));
+		} catch (GraphException e) {
+			out.println(e.getMessage());
+			return;
+		}
+
+		StringBuilder header = new StringBuilder();
+		for (int t : targets)
+			header.append('\t').append(csr.name(t));
+		out.println(header);
+		DistanceMatrix.compute(csr, sources, targets, ForkJoinPool.commonPool(),
+				(i, values, offset) -> {
+					StringBuilder row = new StringBuilder(csr.name(sources[i]));
+					for (int j = 0; j < targets.length; j++) {
+						float d = values[offset + j];
+						row.append('\t');
+						if (d == INFINITY)
+							row.append("inf");
+						else
+							row.append(d);
+					}
+					out.println(row);
+				});
+	}
+
+	// Splits a comma separated vertex list, "*" standing for every vertex
+	private static List<String> names(CsrGraph csr, String list)
+	{
+		List<String> names = new ArrayList<String>();
+		if (list.equals("*")) {
+			for (int i = 0; i < csr.vertexCount(); i++)
+				names.add(csr.name(csr.byName(i)));
+		} else {
+			StringTokenizer st = new StringTokenizer(list, ",");
+			while (st.hasMoreTokens())
+				names.add(st.nextToken());
+		}
+		return names;
+	}
+
+	private static int[] ids(CsrGraph csr, List<String> names)
+	{
+		int[] ids = new int[names.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = csr.indexOf(names.get(i));
+			if (ids[i] < 0)
+				throw new GraphException("Provided vertex " + names.get(i)
+						+ " is not present in graph");
+		}
+		return ids;
+	}
+
+	/**
+	 * Keeps the shortest path tree of source up to date under every later
+	 * change, so path queries from it are answered without a search.
+	 */
+	public synchronized void addHotSource(String source, PrintWriter out)
+	{
+		materialize();
+		Vertex v = vertex(source);
+		if (v == null) {
+			out.println("Provided vertex is not present in graph");
+			return;
+		}
+		if (dynamic == null)
+			dynamic = new DynamicShortestPaths();
+		if (!dynamic.addSource(v))
+			out.println("Provided vertex is already hot");
+		current = null;
+	}
+
+	/**
+	 * With a vertex name makes it a hot source; without one prints the hot
+	 * sources and the no. of tree vertices the updates touched. How many
+	 * each update touched is in the histogram the stats command prints.
+	 */
+	public void hot(String source, PrintWriter out)
+	{
+		if (!source.isEmpty()) {
+			addHotSource(source, out);
+		} else if (dynamic == null) {
+			out.println("No hot sources");
+		} else {
+			out.println("Hot sources " + dynamic.getSources());
+			out.println("Touched by last update " + dynamic.getLastTouched()
+					+ ", in total " + dynamic.getTotalTouched());
+		}
+	}
+
+	/**
+	 * Memoizes up to capacity single-source shortest path trees, so path
+	 * queries sharing a source run one search between them. 0 turns it off.
+	 */
+	public synchronized void setTreeCache(int capacity)
+	{
+		treeCache = capacity > 0 ? new ShortestPathTreeCache(capacity) : null;
+		current = null;
+	}
+
+	/**
+	 * Computes whole shortest path trees (tree cache misses, the delta
+	 * search) by delta-stepping with buckets of width delta (null for the
+	 * mean edge weight; others must be positive) on threads threads (<= 0
+	 * for the common pool). A pool of the same size is kept; one that is
+	 * replaced is shut down.
+	 */
+	public synchronized void setParallelTrees(Float delta, int threads)
+	{
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		if (threads > 0)
+			pool = treePool != null && treePool.getParallelism() == threads ? treePool
+					: new ForkJoinPool(threads);
+		DeltaStepping d;
+		try {
+			d = delta == null ? new DeltaStepping(pool) : new DeltaStepping(pool, delta);
+		} catch (GraphException e) {
+			if (pool != treePool && pool != ForkJoinPool.commonPool())
+				pool.shutdown();
+			throw e;
+		}
+		// ***the old pool's workers exit once the trees in flight are done
+		if (treePool != null && treePool != pool)
+			treePool.shutdown();
+		treePool = pool == ForkJoinPool.commonPool() ? null : pool;
+		parallelTrees = d;
+		current = null;
+	}
+
+	/**
+	 * Prints the hit/miss/eviction/invalidation counters of the tree cache.
+	 */
+	public void cache(PrintWriter out)
+	{
+		DeltaStepping d = parallelTrees;
+		if (d != null)
+			out.println("Delta-stepping trees " + d.getTrees() + ", Dijkstra fallbacks "
+					+ d.getFallbacks() + ", threads " + d.getParallelism());
+		ShortestPathTreeCache c = treeCache;
+		if (c == null) {
+			out.println("Tree cache is off");
+			return;
+		}
+		out.println("Tree cache " + c.size() + "/" + c.getCapacity()
+				+ " trees, hits " + c.getHits() + ", misses " + c.getMisses()
+				+ ", evictions " + c.getEvictions() + ", invalidations "
+				+ c.getInvalidations());
+	}
+
+	/**
+	 * Runs the Contraction Hierarchies preprocessing on the current graph and
+	 * answers path queries from the hierarchy from now on. Whenever the graph
+	 * changes the hierarchy is rebuilt in the background; until it catches up,
+	 * path queries fall back to the plain search.
+	 */
+	public void buildHierarchy()
+	{
+		CsrGraph csr = snapshot();
+		long start = System.nanoTime();
+		ContractionHierarchy ch = new ContractionHierarchy(csr);
+		System.err.println("Contraction hierarchy: " + ch.getShortcuts()
+				+ " shortcuts in " + (System.nanoTime() - start) / 1000000 + " ms");
+		synchronized (this) {
+			hierarchy = ch;
+			useHierarchy = true;
+			if (hierarchyBuilder == null) {
+				hierarchyBuilder = Executors.newSingleThreadExecutor(r -> {
+					Thread t = new Thread(r, "hierarchy-builder");
+					t.setDaemon(true);
+					return t;
+				});
+			}
+			current = null;
+		}
+	}
+
+	// Hierarchy for the given snapshot, or null if it is not built yet
+	private ContractionHierarchy currentHierarchy(CsrGraph csr)
+	{
+		ContractionHierarchy ch = hierarchy;
+		if (ch != null && ch.getGraph() == csr)
+			return ch;
+		if (hierarchyFailed != csr)
+			rebuildHierarchy();
+		return null;
+	}
+
+	// Starts a background rebuild unless one is already running. The builder
+	// keeps going until its hierarchy matches the latest snapshot, so a burst
+	// of changes costs one or two rebuilds, not one per change. A failed
+	// rebuild is reported once and not retried until the next snapshot.
+	// Readers get here, so nothing is locked: the builder thread exists
+	// since buildHierarchy.
+	private void rebuildHierarchy()
+	{
+		ExecutorService builder = hierarchyBuilder;
+		if (builder == null || !hierarchyBuilding.compareAndSet(false, true))
+			return;
+		builder.execute(() -> {
+			CsrGraph csr = null;
+			try {
+				while (true) {
+					csr = snapshot();
+					ContractionHierarchy ch = new ContractionHierarchy(csr);
+					synchronized (this) {
+						hierarchy = ch;
+						if (snapshot() == csr)
+							return;
+					}
+				}
+			} catch (Throwable e) {
+				// ***queries keep falling back to the plain search; the next
+				// ***snapshot gets another try
+				hierarchyFailed = csr;
+				System.err.println("Contraction hierarchy: rebuild failed: " + e);
+			} finally {
+				hierarchyBuilding.set(false);
+			}
+		});
+	}
+
+	// A* heuristic for the given snapshot and settings
+	private static Heuristic buildHeuristic(CsrGraph csr, String heuristicName,
+			Map<String, double[]> coordinates)
+	{
+		String name = heuristicName;
+		if (name == null)
+			name = coordinates != null ? "euclidean" : "alt";
+		if (name.equals("alt"))
+			return new LandmarkHeuristic(csr);
+		CoordinateHeuristic h = new CoordinateHeuristic(csr, coordinates, name.equals("haversine"));
+		// ***partial coordinates give no estimates; unless asked for, use landmarks
+		if (h.getMissing() > 0 && heuristicName == null)
+			return new LandmarkHeuristic(csr);
+		return h;
+	}
+
+	/**
+	 * Prints the shortest path from source to dest on the snapshot csr, with
+	 * the same messages weighted and printPath give.
+	 */
+	public void path(CsrGraph csr, CharSequence source, CharSequence dest, PrintWriter out)
+	{
+		path(state(csr), source, dest, out);
+	}
+
+	/**
+	 * Prints the shortest path from source to dest on the snapshot last
+	 * published, without taking any lock.
+	 */
+	public void path(CharSequence source, CharSequence dest, PrintWriter out)
+	{
+		QueryState q = published;
+		if (q == null) {
+			publish();
+			q = published;
+		}
+		path(q, source, dest, out);
+	}
+
+	private void path(QueryState q, CharSequence source, CharSequence dest, PrintWriter out)
+	{
+		CsrGraph csr = q.graph;
+		int s = csr.indexOf(source);
+		int t = csr.indexOf(dest);
+		if (s < 0) {
+			out.println("Start vertex not found");
+		} else if (csr.isVertexDown(s)) {
+			out.println("This path cannot be there as " + source
+					+ " is down");
+		}
+		if (t < 0)
+			out.println("Destination vertex not found");
+		else if (s < 0 || csr.isVertexDown(s))
+			out.println(dest + " is unreachable");
+		else
+			out.println(query(q, s, t));
+	}
+
+	/**
+	 * Applies one "--name=value" command-line option to the graph.
+	 */
+	private static void applyOption(Graph g, String option) throws IOException
+	{
+		int eq = option.indexOf('=');
+		String name = eq < 0 ? option : option.substring(0, eq);
+		String value = eq < 0 ? "" : option.substring(eq + 1);
+
+		if (name.equals("--search")) {
+			g.setSearch(value);
+		} else if (name.equals("--coords")) {
+			g.loadCoordinates(value);
+		} else if (name.equals("--heuristic")) {
+			g.setHeuristic(value);
+		} else if (name.equals("--ch")) {
+			g.useHierarchy = true;
+		} else if (name.equals("--hot")) {
+			g.hotSources = value;
+		} else if (name.equals("--batch")) {
+			g.script = "-";
+		} else if (name.equals("--script")) {
+			g.script = value;
+		} else if (name.equals("--offheap")) {
+			g.setStorage(new OffHeapStorage(value));
+		} else if (name.equals("--verify")) {
+			g.verify = true;
+		} else if (name.equals("--reorder")) {
+			g.setOrder(value);
+		} else if (name.equals("--serve")) {
+			g.serve = value;
+		} else if (name.equals("--wal")) {
+			g.walBase = value;
+		} else if (name.equals("--checkpoint")) {
+			try {
+				g.checkpointEvery = Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				throw new GraphException("Bad checkpoint interval " + value);
+			}
+		} else if (name.equals("--wal-flush")) {
+			try {
+				g.flushMillis = Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				throw new GraphException("Bad flush interval " + value);
+			}
+		} else if (name.equals("--delta")) {
+			g.delta = value;
+		} else if (name.equals("--threads")) {
+			try {
+				g.threads = Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				throw new GraphException("Bad thread count " + value);
+			}
+		} else if (name.equals("--cache")) {
+			try {
+				g.setTreeCache(Integer.parseInt(value));
+			} catch (NumberFormatException e) {
+				throw new GraphException("Bad cache size " + value);
+			}
+		} else {
+			throw new GraphException("Unknown option " + option);
+		}
+	}
+
+	/**
+	 * A main routine that: 1. Reads a file containing edges (supplied as a
+	 * command-line parameter); 2. Forms the graph; 3. Repeatedly prompts for
+	 * the proper commands which are to be given to run on the graph The data
+	 * file is a sequence of lines of the format source destination weight,
+	 * or a snapshot written by the save command. Options after the file name: --search=dijkstra|bidir|astar|delta
+	 * (bidir, the default, may pick another path than dijkstra among equally short ones),
+	 * --coords=file, --heuristic=euclidean|haversine|alt, --ch (contraction
+	 * hierarchy preprocessing), --hot=v1,v2 (sources whose trees are kept
+	 * up to date), --cache=n (memoize the trees of n sources), --delta[=width]
+	 * (whole trees by parallel delta-stepping), --threads=n (its pool size), --wal=base
+	 * (write-ahead log base.wal with checkpoints to base.snap),
+	 * --checkpoint=n (changes between checkpoints), --wal-flush=ms (group
+	 * commit window), --batch (commands from stdin without prompts),
+	 * --script=file (commands from a file), --serve=port|unix:path (answer
+	 * commands from socket clients instead of the console), --offheap[=dir]
+	 * (snapshot arrays in direct memory, or in files mapped from dir),
+	 * --verify (check every id of a snapshot on load, reading all of it),
+	 * --reorder[=bfs|rcm|hilbert] (relabel vertices for cache locality)
+	 */
+	public static void main(String[] args)
+	{
+		Graph g = new Graph();
+		try {
+			for (int i = 1; i < args.length; i++) {
+				applyOption(g, args[i]);
+			}
+			if (g.delta != null || g.search.equals("delta")) {
+				try {
+					g.setParallelTrees(g.delta == null || g.delta.isEmpty() ? null
+							: Float.valueOf(g.delta), g.threads);
+				} catch (NumberFormatException e) {
+					throw new GraphException("Bad bucket width " + g.delta);
+				}
+			}
+			if ("hilbert".equals(g.order) && g.coordinates == null)
+				throw new GraphException("Ordering hilbert needs a coordinates file");
+		} catch (IOException | GraphException e) {
+			System.err.println(e);
+			return;
+		}
+		try {
+			// Read the edges straight into the snapshot; with a write-ahead
+			// log, recover from the last checkpoint and the changes after it
+			String base = g.walBase;
+			if (base != null && Files.exists(Paths.get(base + ".snap")))
+				g.load(base + ".snap");
+			else
+				g.load(args[0]);
+			if (base != null)
+				g.openLog(base);
+		} catch (IOException | GraphException e) {
+			System.err.println(e);
+			if (g.walBase != null)
+				return;
+		}
+
+		if (g.useHierarchy) {
+			g.buildHierarchy();
+		}
+		if (g.hotSources != null) {
+			StringTokenizer hot = new StringTokenizer(g.hotSources, ",");
+			while (hot.hasMoreTokens())
+				g.addHotSource(hot.nextToken(), stdout());
+		}
+
+		// System.out.println( "File read..." );
+		// System.out.println( Graph.vertexList.size( ) + " vertices" );
+		// g.printGraph();
+
+		if (g.serve != null) {
+			try {
+				new GraphServer(g).serve(GraphServer.address(g.serve));
+			} catch (IOException | GraphException e) {
+				System.err.println(e);
+			}
+			return;
+		}
+
+		PrintWriter out = new PrintWriter(new BufferedWriter(
+				new OutputStreamWriter(System.out), 1 << 16), false);
+		try {
+			BufferedReader in;
+			if (g.script == null || g.script.equals("-"))
+				in = new BufferedReader(new InputStreamReader(System.in), 1 << 16);
+			else
+				in = new BufferedReader(new FileReader(g.script), 1 << 16);
+			try {
+				new CommandProcessor(g).run(in, out, g.script == null);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			out.flush();
+			System.err.println(e);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Reads an edge file of "source destination weight" lines straight into a
+// CsrGraph, without going through the mutable Vertex graph.
+// The file is memory-mapped and cut into chunks at line boundaries. The
+// chunks are parsed in parallel by a byte-level tokenizer that interns the
+// names of each chunk into a local NameDictionary, so no name ever becomes a
+// String. The chunk dictionaries are then merged byte-wise, ids are
+// renumbered into name order, and the edges are laid out with a counting
+// sort on their tails. Every line adds an edge both ways
+// and the adjacency ends up exactly as addEdge followed by freeze builds it.
+// Lines end where Scanner.nextLine ends them: at \n, \r\n, a lone \r, or
+// the UTF-8 encodings of U+0085, U+2028 and U+2029.
+// Ill-formatted lines are reported on System.err in file order.
+final class GraphLoader
+{
+	private static final int MIN_CHUNK = 1 << 20;   // bytes
+	private static final int MAX_CHUNK = 1 << 30;   // must fit one mapping
+
+	// 10^k as floats, exact for k <= 10
+	private static final float[] POW10 = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f,
+			1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+	private GraphLoader() {
+	}
+
+	/**
+	 * Loads the edge file, parsing its chunks on the given pool.
+	 */
+	public static CsrGraph load(String file, ForkJoinPool pool) throws IOException
+	{
+		return load(file, pool, null);
+	}
+
+	/**
+	 * Loads the edge file into arrays allocated from storage, or on the heap
+	 * if storage is null.
+	 */
+	public static CsrGraph load(String file, ForkJoinPool pool, OffHeapStorage storage)
+			throws IOException
+	{
+		long started = System.nanoTime();
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			long[] bounds = split(ch, pool.getParallelism());
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (int i = 0; i + 1 < bounds.length; i++) {
+				MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY,
+						bounds[i], bounds[i + 1] - bounds[i]);
+				final Chunk c = new Chunk(buf);
+				chunks.add(c);
+				tasks.add(pool.submit(c::parse));
+			}
+			for (int i = 0; i < tasks.size(); i++) {
+				tasks.get(i).join();
+				for (String line : chunks.get(i).skipped)
+					System.err.println("Skipping ill-formatted line " + line);
+			}
+		}
+		long lines = 0;
+		for (Chunk c : chunks)
+			lines += c.lines;
+		CsrGraph g = build(chunks, storage);
+
+		long ms = Math.max(1, (System.nanoTime() - started) / 1000000);
+		System.err.println("Loaded " + lines + " lines (" + g.vertexCount()
+				+ " vertices, " + g.edgeCount() + " edges) in " + ms + " ms, "
+				+ (lines * 1000 / ms) + " lines/sec");
+		return g;
+	}
+
+	/**
+	 * Length of the line terminator starting at b[i], 0 if there is none.
+	 * Looks at no byte from end on.
+	 */
+	static int terminator(ByteBuffer b, int i, int end)
+	{
+		byte c = b.get(i);
+		if (c == '\n')
+			return 1;
+		if (c == '\r')
+			return i + 1 < end && b.get(i + 1) == '\n' ? 2 : 1;
+		if (c == (byte) 0xC2)   // U+0085 next line
+			return i + 1 < end && b.get(i + 1) == (byte) 0x85 ? 2 : 0;
+		if (c == (byte) 0xE2 && i + 2 < end && b.get(i + 1) == (byte) 0x80
+				&& (b.get(i + 2) == (byte) 0xA8 || b.get(i + 2) == (byte) 0xA9))
+			return 3;           // U+2028 line, U+2029 paragraph separator
+		return 0;
+	}
+
+	// Chunk boundaries: offsets just past a line terminator, first 0, last
+	// the size
+	private static long[] split(FileChannel ch, int parallelism) throws IOException
+	{
+		long size = ch.size();
+		long count = Math.max(1, Math.min(4L * parallelism, size / MIN_CHUNK));
+		count = Math.max(count, (size + MAX_CHUNK - 1) / MAX_CHUNK);
+		long step = (size + count - 1) / count;
+
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(0L);
+		ByteBuffer window = ByteBuffer.allocate(1 << 16);
+		long at = step;
+		while (at < size) {
+			// ***move the cut forward to the start of the next line; windows
+			// ***overlap by 2 bytes so no terminator is split between two
+			long cut = -1;
+			for (long pos = at; cut < 0 && pos < size; pos += Math.max(1, window.limit() - 2)) {
+				window.clear();
+				if (ch.read(window, pos) <= 0)
+					break;
+				window.flip();
+				int limit = window.limit();
+				int scan = pos + limit >= size ? limit : limit - 2;
+				for (int i = 0; i < scan; i++) {
+					int len = terminator(window, i, limit);
+					if (len > 0) {
+						cut = pos + i + len;
+						break;
+					}
+				}
+				if (pos + limit >= size)
+					break;
+			}
+			if (cut < 0 || cut >= size)
+				break;
+			if (cut - bounds.get(bounds.size() - 1) > MAX_CHUNK)
+				throw new GraphException("Line too long near offset " + at);
+			bounds.add(cut);
+			at = Math.max(cut, at + step);
+		}
+		if (size - bounds.get(bounds.size() - 1) > MAX_CHUNK)
+			throw new GraphException("Line too long near offset " + size);
+		bounds.add(size);
+
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = bounds.get(i);
+		return result;
+	}
+
+	// Merges the chunk dictionaries and lays the edges out as a CSR, in
+	// storage when it is given. Only arrays of one entry per vertex are
+	// held on the heap on the way
+	private static CsrGraph build(List<Chunk> chunks, OffHeapStorage storage)
+	{
+		// ***global id of every chunk-local name, in first-seen order; the
+		// ***bytes move from arena to arena without becoming Strings
+		NameDictionary global = chunks.size() == 1 ? chunks.get(0).names : new NameDictionary();
+		int[][] toGlobal = new int[chunks.size()][];
+		for (int k = 0; k < chunks.size(); k++) {
+			NameDictionary local = chunks.get(k).names;
+			int[] map = new int[local.size()];
+			for (int i = 0; i < map.length; i++)
+				map[i] = local == global ? i : global.intern(local, i);
+			toGlobal[k] = map;
+		}
+
+		// ***renumber into name order, the order CsrGraph ids follow
+		NameDictionary names = global.sorted();
+		int n = names.size();
+		int[] rank = global.ranks();
+		for (int[] map : toGlobal) {
+			for (int i = 0; i < map.length; i++)
+				map[i] = rank[map[i]];
+		}
+
+		long arcs = 0;
+		for (Chunk c : chunks)
+			arcs += 2L * c.edges;
+		if (arcs > Integer.MAX_VALUE - 8)
+			throw new GraphException("Too many edges: " + arcs);
+		int m = (int) arcs;
+
+		// ***counting sort on the tail, keeping file order within a tail
+		int[] offsets = new int[n + 1];
+		for (int k = 0; k < chunks.size(); k++) {
+			Chunk c = chunks.get(k);
+			int[] map = toGlobal[k];
+			for (int i = 0; i < c.edges; i++) {
+				offsets[map[c.tails[i]] + 1]++;
+				offsets[map[c.heads[i]] + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] += offsets[v];
+		int[] fill = Arrays.copyOf(offsets, n);
+		IntBuffer targets = storage != null ? storage.ints(m) : IntBuffer.wrap(new int[m]);
+		FloatBuffer weights = storage != null ? storage.floats(m)
+				: FloatBuffer.wrap(new float[m]);
+		for (int k = 0; k < chunks.size(); k++) {
+			Chunk c = chunks.get(k);
+			int[] map = toGlobal[k];
+			for (int i = 0; i < c.edges; i++) {
+				int a = map[c.tails[i]];
+				int b = map[c.heads[i]];
+				int e = fill[a]++;
+				targets.put(e, b);
+				weights.put(e, c.weights[i]);
+				e = fill[b]++;
+				targets.put(e, a);
+				weights.put(e, c.weights[i]);
+			}
+			chunks.set(k, null);   // the parsed arrays are no longer needed
+		}
+		sortAdjacency(offsets, targets, weights);
+		if (storage != null)
+			return storage.graph(names, storage.copyOf(offsets), targets, weights,
+					storage.longs(CsrGraph.words(n)), storage.longs(CsrGraph.words(m)), null);
+		return new CsrGraph(names, offsets, targets.array(), weights.array(),
+				new long[CsrGraph.words(n)], new long[CsrGraph.words(m)], null);
+	}
+
+	// Stable sort of every out edge list on the head id, the order
+	// Collections.sort gives the edges in CsrGraph.build
+	private static void sortAdjacency(int[] offsets, IntBuffer targets, FloatBuffer weights)
+	{
+		long[] keys = new long[0];
+		float[] w = new float[0];
+		for (int v = 0; v + 1 < offsets.length; v++) {
+			int from = offsets[v];
+			int to = offsets[v + 1];
+			boolean sorted = true;
+			for (int e = from + 1; e < to && sorted; e++)
+				sorted = targets.get(e - 1) <= targets.get(e);
+			if (sorted)
+				continue;
+			int deg = to - from;
+			if (keys.length < deg) {
+				keys = new long[deg];
+				w = new float[deg];
+			}
+			for (int i = 0; i < deg; i++)
+				keys[i] = (long) targets.get(from + i) << 32 | i;
+			Arrays.sort(keys, 0, deg);
+			weights.get(from, w, 0, deg);
+			for (int i = 0; i < deg; i++) {
+				targets.put(from + i, (int) (keys[i] >>> 32));
+				weights.put(from + i, w[(int) keys[i]]);
+			}
+		}
+	}
+
+	private static boolean isSpace(byte c)
+	{
+		// ***the delimiters StringTokenizer splits on by default
+		return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == '\n';
+	}
+
+	/**
+	 * Parses the weight token buf[from, to). Plain decimals with at most
+	 * 7 significant digits and 10 decimals are converted exactly by one float
+	 * division; anything else goes through Float.parseFloat.
+	 */
+	static float parseWeight(ByteBuffer buf, int from, int to)
+	{
+		int i = from;
+		boolean negative = false;
+		if (i < to && (buf.get(i) == '-' || buf.get(i) == '+'))
+			negative = buf.get(i++) == '-';
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = 0;
+		boolean dot = false;
+		for (; i < to; i++) {
+			byte c = buf.get(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (dot)
+					decimals++;
+				if (mantissa > 1 << 24)
+					break;
+			} else if (c == '.' && !dot) {
+				dot = true;
+			} else {
+				break;
+			}
+		}
+		if (i == to && digits > 0 && decimals < POW10.length) {
+			// ***both operands are exact floats, so the division rounds once
+			float f = (float) mantissa / POW10[decimals];
+			return negative ? -f : f;
+		}
+		return Float.parseFloat(text(buf, from, to));
+	}
+
+	private static String text(ByteBuffer buf, int from, int to)
+	{
+		byte[] bytes = new byte[to - from];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buf.get(from + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// One chunk of the file and what parsing it produced
+	private static final class Chunk
+	{
+		final ByteBuffer buf;
+		final NameDictionary names = new NameDictionary();
+		final List<String> skipped = new ArrayList<String>();
+		long lines;
+		int edges;
+		int[] tails;
+		int[] heads;
+		float[] weights;
+
+		Chunk(ByteBuffer buf) {
+			this.buf = buf;
+			int guess = Math.max(16, buf.limit() / 24);
+			tails = new int[guess];
+			heads = new int[guess];
+			weights = new float[guess];
+		}
+
+		void parse()
+		{
+			ByteBuffer b = buf;
+			int end = b.limit();
+			int[] start = new int[3];
+			int[] stop = new int[3];
+			int pos = 0;
+			while (pos < end) {
+				int eol = pos;
+				int len = 0;
+				while (eol < end && (len = terminator(b, eol, end)) == 0)
+					eol++;
+				lines++;
+
+				// ***split into tokens, giving up after a fourth one
+				int tokens = 0;
+				int i = pos;
+				while (tokens <= 3) {
+					while (i < eol && isSpace(b.get(i)))
+						i++;
+					if (i == eol)
+						break;
+					if (tokens == 3) {
+						tokens++;
+						break;
+					}
+					start[tokens] = i;
+					while (i < eol && !isSpace(b.get(i)))
+						i++;
+					stop[tokens++] = i;
+				}
+				if (tokens != 3) {
+					skip(pos, eol);
+				} else {
+					try {
+						float wt = parseWeight(b, start[2], stop[2]);
+						add(names.intern(b, start[0], stop[0]),
+								names.intern(b, start[1], stop[1]), wt);
+					} catch (NumberFormatException e) {
+						skip(pos, eol);
+					}
+				}
+				pos = eol + Math.max(len, 1);
+			}
+		}
+
+		private void skip(int from, int to)
+		{
+			skipped.add(text(buf, from, to));
+		}
+
+		private void add(int tail, int head, float weight)
+		{
+			if (edges == tails.length) {
+				int size = edges + (edges >> 1);
+				tails = Arrays.copyOf(tails, size);
+				heads = Arrays.copyOf(heads, size);
+				weights = Arrays.copyOf(weights, size);
+			}
+			tails[edges] = tail;
+			heads[edges] = head;
+			weights[edges++] = weight;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Long-running service speaking the command vocabulary of CommandProcessor,
+// one command per line, over a local TCP port or a Unix domain socket.
+// Every connection gets its own session thread, a virtual thread where the
+// JVM has them. Queries (path, reachable, print, matrix, ...) run right on
+// the session thread against the snapshot published last, an immutable
+// CsrGraph, so readers never take the graph's lock or wait for a change.
+// Changes are queued to one writer thread, which applies whatever is queued
+// as a batch, along with whatever got queued while it was applying, syncs
+// the write-ahead log once for the batch, re-freezes and publishes the new
+// snapshot, and only then answers the sessions. A session therefore always
+// sees its own changes in its next query (read-copy-update). A change that
+// fails, even with an Error, fails only its own session; the writer goes on.
+// Output is flushed when a session has no more commands waiting, so
+// pipelining clients get their answers in bulk.
+final class GraphServer
+{
+	// A change to run on the writer thread
+	interface Change
+	{
+		void apply() throws IOException;
+	}
+
+	// A queued change and the session waiting for it
+	private static final class Pending
+	{
+		final Change change;
+		final CountDownLatch done = new CountDownLatch(1);
+		Throwable error;
+
+		Pending(Change change) {
+			this.change = change;
+		}
+	}
+
+	private static final int MAX_BATCH = 4096;
+
+	private final Graph graph;
+	private final BlockingQueue<Pending> changes = new LinkedBlockingQueue<Pending>();
+	private final ExecutorService sessions = newSessionExecutor();
+	private final Thread writer;
+
+	public GraphServer(Graph graph) {
+		this.graph = graph;
+		graph.publish();
+		writer = new Thread(this::writeLoop, "graph-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// Virtual thread per session when the JVM supports them, else a cached
+	// pool of platform threads
+	static ExecutorService newSessionExecutor()
+	{
+		try {
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "graph-session");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Address of a --serve option: "unix:/path" for a Unix domain socket,
+	 * "host:port", or just a port on the loopback interface.
+	 */
+	static SocketAddress address(String spec)
+	{
+		try {
+			if (spec.startsWith("unix:"))
+				return UnixDomainSocketAddress.of(spec.substring(5));
+			int colon = spec.lastIndexOf(':');
+			if (colon < 0)
+				return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+						Integer.parseInt(spec));
+			return new InetSocketAddress(spec.substring(0, colon),
+					Integer.parseInt(spec.substring(colon + 1)));
+		} catch (IllegalArgumentException e) {
+			throw new GraphException("Bad server address " + spec);
+		}
+	}
+
+	/** Accepts connections on address until the process ends. */
+	public void serve(SocketAddress address) throws IOException
+	{
+		ServerSocketChannel server;
+		if (address instanceof UnixDomainSocketAddress) {
+			Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			server = ServerSocketChannel.open();
+		}
+		try (ServerSocketChannel s = server) {
+			s.bind(address);
+			System.err.println("Serving on " + s.getLocalAddress());
+			while (true) {
+				final SocketChannel ch = s.accept();
+				sessions.execute(() -> session(ch));
+			}
+		}
+	}
+
+	// Runs the commands of one connection until the client closes it
+	private void session(SocketChannel ch)
+	{
+		try (SocketChannel c = ch) {
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					Channels.newInputStream(c), StandardCharsets.UTF_8), 1 << 16);
+			PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+					Channels.newOutputStream(c), StandardCharsets.UTF_8), 1 << 16), false);
+			CommandProcessor p = new CommandProcessor(graph, this);
+			String line;
+			while ((line = in.readLine()) != null) {
+				p.execute(line, out);
+				if (!in.ready())
+					out.flush();
+			}
+			out.flush();
+		} catch (IOException e) {
+			System.err.println(e);
+		}
+	}
+
+	/**
+	 * Runs change on the writer thread and waits until it is applied, logged
+	 * and published. Exceptions it throws are rethrown here.
+	 */
+	public void change(Change change) throws IOException
+	{
+		Pending p = new Pending(change);
+		changes.add(p);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				p.done.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (p.error instanceof IOException)
+			throw (IOException) p.error;
+		if (p.error instanceof RuntimeException)
+			throw (RuntimeException) p.error;
+		if (p.error != null)
+			throw new GraphException("Change failed: " + p.error);
+	}
+
+	// The single writer: applies queued changes in batches and publishes a
+	// new snapshot after each batch. Whatever goes wrong in a batch fails
+	// the sessions waiting for it, never the writer, which would leave every
+	// later change waiting forever.
+	private void writeLoop()
+	{
+		List<Pending> batch = new ArrayList<Pending>();
+		while (true) {
+			try {
+				batch.add(changes.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				applyQueued(batch);
+				graph.syncLog();
+				graph.publish();
+			} catch (Throwable e) {
+				System.err.println("Writer: " + e);
+				for (Pending p : batch) {
+					if (p.error == null)
+						p.error = e;
+				}
+			} finally {
+				for (Pending p : batch)
+					p.done.countDown();
+				batch.clear();
+			}
+		}
+	}
+
+	// Applies the changes in batch and keeps taking the ones queued
+	// meanwhile, up to MAX_BATCH, so that one publish, which re-freezes the
+	// whole graph, covers all of them
+	private void applyQueued(List<Pending> batch)
+	{
+		int applied = 0;
+		do {
+			for (; applied < batch.size(); applied++) {
+				Pending p = batch.get(applied);
+				try {
+					p.change.apply();
+				} catch (Throwable e) {
+					p.error = e;
+				}
+			}
+		} while (batch.size() < MAX_BATCH
+				&& changes.drainTo(batch, MAX_BATCH - batch.size()) > 0);
+	}
+}
@@ -0,0 +1,411 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Versioned binary file format of a CsrGraph, so a graph can be saved with
+// its runtime state and mapped back in without parsing anything.
+// Layout, little-endian, every section starting on an 8 byte boundary:
+//   header     magic "GRAPHCSR", int format version, int vertices n,
+//              int edges m, int checkpoint generation (0 when saved by
+//              hand, see MutationLog), long length of the name bytes
+//   nameStart  int[n + 1], name v is nameBytes[nameStart[v], nameStart[v + 1])
+//   nameBytes  the names in UTF-8
+//   offsets    int[n + 1]
+//   targets    int[m]
+//   weights    float[m]
+//   rOffsets   int[n + 1]
+//   rSources   int[m]
+//   rEdges     int[m]
+//   vertexDown long[(n + 63) / 64], bitset of down vertices
+//   edgeDown   long[(m + 63) / 64], bitset of down edges
+//   byName     int[n], vertex ids in name order (format 2 on; format 1
+//              files have their ids in name order)
+// Loading maps every section read-only and hands the buffers to CsrGraph,
+// so the arrays are never copied onto the heap. Before that the header,
+// the format version and every section length are checked against the
+// file size, along with the first and last entry of each offset array, so
+// a truncated file fails with a GraphException on load. That reads a few
+// pages whatever the size of the graph. Checking every offset and vertex
+// or edge id as well reads the whole file, so it is only done when asked
+// for (load(file, true), the --verify option).
+final class GraphSnapshot
+{
+	private static final byte[] MAGIC = "GRAPHCSR".getBytes(StandardCharsets.US_ASCII);
+	private static final int FORMAT = 2;
+	private static final int HEADER = 32;
+
+	private GraphSnapshot() {
+	}
+
+	/** True if file starts with the snapshot magic. */
+	public static boolean isSnapshot(String file) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			ByteBuffer b = ByteBuffer.allocate(MAGIC.length);
+			while (b.hasRemaining() && ch.read(b) > 0) {
+			}
+			return !b.hasRemaining() && Arrays.equals(b.array(), MAGIC);
+		}
+	}
+
+	/**
+	 * Writes g to file. The data goes to a temporary file first, which is
+	 * synced and then renamed over file, and the directory is synced after
+	 * the rename, so a crash leaves either the old or the new snapshot
+	 * behind, never a torn one.
+	 */
+	public static void save(CsrGraph g, String file) throws IOException
+	{
+		save(g, file, 0);
+	}
+
+	/** Same as save, recording the checkpoint generation in the header. */
+	public static void save(CsrGraph g, String file, int generation) throws IOException
+	{
+		int n = g.vertexCount();
+		int m = g.edgeCount();
+		NameDictionary names = g.names();
+		int nameBytes = names.byteLength();
+
+		Path target = Paths.get(file).toAbsolutePath();
+		Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			Out out = new Out(ch);
+			out.bytes(MAGIC, 0, MAGIC.length);
+			out.putInt(FORMAT);
+			out.putInt(n);
+			out.putInt(m);
+			out.putInt(generation);
+			out.putLong(nameBytes);
+
+			// ***the name arena is written as it is
+			for (int v = 0; v <= n; v++)
+				out.putInt(names.start(v));
+			out.align();
+			byte[] chunk = new byte[1 << 16];
+			for (int at = 0; at < nameBytes; at += chunk.length) {
+				int len = Math.min(chunk.length, nameBytes - at);
+				names.getBytes(at, chunk, 0, len);
+				out.bytes(chunk, 0, len);
+			}
+			out.align();
+
+			for (int v = 0; v < n; v++)
+				out.putInt(g.edgeStart(v));
+			out.putInt(m);
+			out.align();
+			for (int e = 0; e < m; e++)
+				out.putInt(g.target(e));
+			out.align();
+			for (int e = 0; e < m; e++)
+				out.putFloat(g.weight(e));
+			out.align();
+
+			for (int v = 0; v < n; v++)
+				out.putInt(g.reverseStart(v));
+			out.putInt(m);
+			out.align();
+			for (int r = 0; r < m; r++)
+				out.putInt(g.reverseSource(r));
+			out.align();
+			for (int r = 0; r < m; r++)
+				out.putInt(g.reverseEdge(r));
+			out.align();
+
+			for (int w = 0; w < CsrGraph.words(n); w++) {
+				long bits = 0;
+				for (int v = w << 6; v < Math.min(n, (w + 1) << 6); v++) {
+					if (g.isVertexDown(v))
+						bits |= 1L << v;
+				}
+				out.putLong(bits);
+			}
+			for (int w = 0; w < CsrGraph.words(m); w++) {
+				long bits = 0;
+				for (int e = w << 6; e < Math.min(m, (w + 1) << 6); e++) {
+					if (g.isEdgeDown(e))
+						bits |= 1L << e;
+				}
+				out.putLong(bits);
+			}
+			for (int i = 0; i < n; i++)
+				out.putInt(g.byName(i));
+			out.align();
+			out.flush();
+			ch.force(true);
+		}
+		Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(target.getParent());
+	}
+
+	// Makes a rename in dir durable. Not every platform can open a
+	// directory for this; there the rename is as durable as it gets
+	private static void syncDirectory(Path dir)
+	{
+		try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+			ch.force(true);
+		} catch (IOException e) {
+			// ***e.g. Windows, which does not open directories as files
+		}
+	}
+
+	/** Checkpoint generation of a snapshot file. */
+	public static int generation(String file) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while (h.hasRemaining() && ch.read(h) > 0) {
+			}
+			if (h.hasRemaining() || !Arrays.equals(Arrays.copyOf(h.array(), MAGIC.length), MAGIC))
+				throw new GraphException("Not a graph snapshot: " + file);
+			return h.getInt(MAGIC.length + 12);
+		}
+	}
+
+	/**
+	 * Maps a snapshot written by save. The returned graph reads the file
+	 * through the page cache; it stays valid after the file is replaced.
+	 */
+	public static CsrGraph load(String file) throws IOException
+	{
+		return load(file, false);
+	}
+
+	/**
+	 * Same as load(file), checking every offset and id of the file first
+	 * when verify is set.
+	 */
+	public static CsrGraph load(String file, boolean verify) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while (h.hasRemaining() && ch.read(h) > 0) {
+			}
+			byte[] magic = new byte[MAGIC.length];
+			h.flip();
+			if (h.remaining() < HEADER)
+				throw new GraphException("Not a graph snapshot: " + file);
+			h.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new GraphException("Not a graph snapshot: " + file);
+			int format = h.getInt();
+			if (format < 1 || format > FORMAT)
+				throw new GraphException("Unsupported snapshot format " + format
+						+ " in " + file);
+			int n = h.getInt();
+			int m = h.getInt();
+			h.getInt();
+			long nameBytes = h.getLong();
+			if (n < 0 || m < 0 || nameBytes < 0)
+				throw new GraphException("Corrupt graph snapshot " + file
+						+ ": negative section length");
+
+			Sections s = new Sections(ch, HEADER);
+			ByteBuffer nameStart = s.next(4L * (n + 1));
+			ByteBuffer names = s.next(nameBytes);
+			ByteBuffer offsets = s.next(4L * (n + 1));
+			ByteBuffer targets = s.next(4L * m);
+			ByteBuffer weights = s.next(4L * m);
+			ByteBuffer rOffsets = s.next(4L * (n + 1));
+			ByteBuffer rSources = s.next(4L * m);
+			ByteBuffer rEdges = s.next(4L * m);
+			ByteBuffer vertexDown = s.next(8L * CsrGraph.words(n));
+			ByteBuffer edgeDown = s.next(8L * CsrGraph.words(m));
+			ByteBuffer byName = format >= 2 ? s.next(4L * n) : null;
+			if (s.at > ch.size())
+				throw new GraphException("Truncated graph snapshot: " + file);
+
+			IntBuffer ids = byName == null ? null : byName.asIntBuffer();
+			String error;
+			if (verify)
+				error = check(n, m, nameBytes, nameStart.asIntBuffer(),
+						offsets.asIntBuffer(), targets.asIntBuffer(), rOffsets.asIntBuffer(),
+						rSources.asIntBuffer(), rEdges.asIntBuffer(), ids);
+			else
+				error = ends(n, m, nameBytes, nameStart.asIntBuffer(), offsets.asIntBuffer(),
+						rOffsets.asIntBuffer());
+			if (error != null)
+				throw new GraphException("Corrupt graph snapshot " + file + ": " + error);
+
+			return new CsrGraph(NameDictionary.over(nameStart.asIntBuffer(), names),
+					offsets.asIntBuffer(), targets.asIntBuffer(),
+					weights.asFloatBuffer(), rOffsets.asIntBuffer(),
+					rSources.asIntBuffer(), rEdges.asIntBuffer(),
+					vertexDown.asLongBuffer(), edgeDown.asLongBuffer(), ids);
+		}
+	}
+
+	// Checks that every array of a mapped snapshot stays within the others:
+	// offsets rise from 0 to their section's end, every vertex and edge id
+	// is in range, every reverse slot points back at an edge into its
+	// vertex, and byName lists each vertex once. Returns what is wrong, or
+	// null
+	private static String check(int n, int m, long nameBytes, IntBuffer nameStart,
+			IntBuffer offsets, IntBuffer targets, IntBuffer rOffsets,
+			IntBuffer rSources, IntBuffer rEdges, IntBuffer byName)
+	{
+		if (!rising(nameStart, n, nameBytes))
+			return "bad name offsets";
+		if (!rising(offsets, n, m))
+			return "bad edge offsets";
+		if (!rising(rOffsets, n, m))
+			return "bad reverse edge offsets";
+		for (int e = 0; e < m; e++) {
+			if (targets.get(e) < 0 || targets.get(e) >= n)
+				return "edge " + e + " leads to no vertex";
+		}
+		for (int v = 0; v < n; v++) {
+			for (int r = rOffsets.get(v); r < rOffsets.get(v + 1); r++) {
+				int u = rSources.get(r);
+				int e = rEdges.get(r);
+				if (u < 0 || u >= n || e < 0 || e >= m || targets.get(e) != v
+						|| e < offsets.get(u) || e >= offsets.get(u + 1))
+					return "reverse edge " + r + " does not match its edge";
+			}
+		}
+		if (byName != null) {
+			long[] seen = new long[CsrGraph.words(n)];
+			for (int i = 0; i < n; i++) {
+				int v = byName.get(i);
+				if (v < 0 || v >= n || (seen[v >>> 6] & 1L << v) != 0)
+					return "name order lists vertex " + v + " wrongly";
+				seen[v >>> 6] |= 1L << v;
+			}
+		}
+		return null;
+	}
+
+	// Checks that the offset arrays start at 0 and end at their section's
+	// end. Returns what is wrong, or null
+	private static String ends(int n, int m, long nameBytes, IntBuffer nameStart,
+			IntBuffer offsets, IntBuffer rOffsets)
+	{
+		if (!ends(nameStart, n, nameBytes))
+			return "bad name offsets";
+		if (!ends(offsets, n, m))
+			return "bad edge offsets";
+		if (!ends(rOffsets, n, m))
+			return "bad reverse edge offsets";
+		return null;
+	}
+
+	private static boolean ends(IntBuffer a, int n, long end)
+	{
+		return a.get(0) == 0 && a.get(n) == end;
+	}
+
+	// True if a[0..n] rises from 0 to end
+	private static boolean rising(IntBuffer a, int n, long end)
+	{
+		if (!ends(a, n, end))
+			return false;
+		for (int v = 0; v < n; v++) {
+			if (a.get(v) > a.get(v + 1))
+				return false;
+		}
+		return true;
+	}
+
+	// Maps consecutive 8 byte aligned sections of the file
+	private static final class Sections
+	{
+		final FileChannel ch;
+		long at;
+
+		Sections(FileChannel ch, long at) {
+			this.ch = ch;
+			this.at = at;
+		}
+
+		ByteBuffer next(long length) throws IOException
+		{
+			if (length > Integer.MAX_VALUE)
+				throw new GraphException("Snapshot section of " + length
+						+ " bytes is too large to map");
+			if (at + length > ch.size())
+				throw new GraphException("Truncated graph snapshot");
+			ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, at, length);
+			at = (at + length + 7) & ~7L;
+			return b.order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	// Buffered little-endian writer that keeps track of the 8 byte alignment
+	private static final class Out
+	{
+		final FileChannel ch;
+		final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		long written;
+
+		Out(FileChannel ch) {
+			this.ch = ch;
+		}
+
+		void room(int bytes) throws IOException
+		{
+			if (buf.remaining() < bytes)
+				flush();
+		}
+
+		void putInt(int x) throws IOException
+		{
+			room(4);
+			buf.putInt(x);
+			written += 4;
+		}
+
+		void putFloat(float x) throws IOException
+		{
+			room(4);
+			buf.putFloat(x);
+			written += 4;
+		}
+
+		void putLong(long x) throws IOException
+		{
+			room(8);
+			buf.putLong(x);
+			written += 8;
+		}
+
+		void bytes(byte[] b, int from, int len) throws IOException
+		{
+			while (len > 0) {
+				room(1);
+				int k = Math.min(len, buf.remaining());
+				buf.put(b, from, k);
+				from += k;
+				len -= k;
+				written += k;
+			}
+		}
+
+		void align() throws IOException
+		{
+			while ((written & 7) != 0) {
+				room(1);
+				buf.put((byte) 0);
+				written++;
+			}
+		}
+
+		void flush() throws IOException
+		{
+			buf.flip();
+			while (buf.hasRemaining())
+				ch.write(buf);
+			buf.clear();
+		}
+	}
+}
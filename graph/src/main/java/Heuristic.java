@@ -0,0 +1,12 @@
+// Lower bound on the remaining distance from a vertex to the target, used to
+// guide A* search over a CsrGraph. Estimates must never exceed the true
+// shortest distance (admissible), or A* may return a longer path than
+// Dijkstra would.
+interface Heuristic
+{
+	// Slack applied to float estimates so that rounding never lets them
+	// exceed the true distance
+	float SAFETY = 0.99999f;
+
+	float estimate(int v, int target);
+}
@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+// ALT heuristic (A*, landmarks and the triangle inequality). For a few
+// landmarks L the exact distances d(L, v) and d(v, L) are precomputed, and
+//     d(v, t) >= max( d(L, t) - d(L, v), d(v, L) - d(t, L) )
+// gives a lower bound for every landmark. Landmarks are picked one at a time
+// as the vertex farthest from the ones already chosen. Distances ignore the
+// down state of vertices and edges, so the bounds stay admissible whatever
+// goes down later.
+final class LandmarkHeuristic implements Heuristic
+{
+	public static final int DEFAULT_LANDMARKS = 8;
+
+	private final int[] landmarks;
+	private final float[][] from;  // from[i][v] = d(landmark i, v)
+	private final float[][] to;    // to[i][v] = d(v, landmark i)
+
+	public LandmarkHeuristic(CsrGraph g) {
+		this(g, DEFAULT_LANDMARKS);
+	}
+
+	public LandmarkHeuristic(CsrGraph g, int count) {
+		int n = g.vertexCount();
+		count = Math.min(count, n);
+		landmarks = new int[count];
+		from = new float[count][];
+		to = new float[count][];
+
+		// ***closest[v] is the distance from v to the nearest chosen landmark
+		float[] closest = new float[n];
+		Arrays.fill(closest, Graph.INFINITY);
+		int next = 0;
+		for (int i = 0; i < count; i++) {
+			landmarks[i] = next;
+			from[i] = g.distances(next, false);
+			to[i] = g.distances(next, true);
+			int far = -1;
+			float best = -1;
+			for (int v = 0; v < n; v++) {
+				float d = Math.min(from[i][v], to[i][v]);
+				if (d < closest[v])
+					closest[v] = d;
+				// ***vertices not connected to any landmark yet come first
+				if (closest[v] > best) {
+					best = closest[v];
+					far = v;
+				}
+			}
+			next = far;
+		}
+	}
+
+	public int[] getLandmarks()
+	{
+		return landmarks.clone();
+	}
+
+	public float estimate(int v, int target)
+	{
+		float best = 0;
+		for (int i = 0; i < landmarks.length; i++) {
+			float[] f = from[i];
+			float[] t = to[i];
+			if (f[target] != Graph.INFINITY && f[v] != Graph.INFINITY) {
+				float d = f[target] - f[v];
+				if (d > best)
+					best = d;
+			}
+			if (t[v] != Graph.INFINITY && t[target] != Graph.INFINITY) {
+				float d = t[v] - t[target];
+				if (d > best)
+					best = d;
+			}
+		}
+		return best * SAFETY;
+	}
+}
@@ -0,0 +1,94 @@
+import java.util.Arrays;
+
+// Changes collected to be applied to a graph in one go by Graph.apply,
+// in the order they were added. Each change is one of the MutationLog
+// record types with its vertex names and weight, kept in parallel arrays.
+final class MutationBatch
+{
+	private byte[] ops = new byte[16];
+	private String[] first = new String[16];
+	private String[] second = new String[16];
+	private float[] weights = new float[16];
+	private int size;
+
+	public void addEdge(String tail, String head, float weight)
+	{
+		add(MutationLog.ADD_EDGE, tail, head, weight);
+	}
+
+	public void deleteEdge(String tail, String head)
+	{
+		add(MutationLog.DELETE_EDGE, tail, head, 0);
+	}
+
+	public void edgeDown(String tail, String head)
+	{
+		add(MutationLog.EDGE_DOWN, tail, head, 0);
+	}
+
+	public void edgeUp(String tail, String head)
+	{
+		add(MutationLog.EDGE_UP, tail, head, 0);
+	}
+
+	public void vertexDown(String v)
+	{
+		add(MutationLog.VERTEX_DOWN, v, "", 0);
+	}
+
+	public void vertexUp(String v)
+	{
+		add(MutationLog.VERTEX_UP, v, "", 0);
+	}
+
+	private void add(byte op, String a, String b, float weight)
+	{
+		if (size == ops.length) {
+			int grown = 2 * size;
+			ops = Arrays.copyOf(ops, grown);
+			first = Arrays.copyOf(first, grown);
+			second = Arrays.copyOf(second, grown);
+			weights = Arrays.copyOf(weights, grown);
+		}
+		ops[size] = op;
+		first[size] = a;
+		second[size] = b;
+		weights[size] = weight;
+		size++;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/** MutationLog record type of change i. */
+	public byte op(int i)
+	{
+		return ops[i];
+	}
+
+	/** Tail of an edge change, or the vertex of a vertex change. */
+	public String first(int i)
+	{
+		return first[i];
+	}
+
+	/** Head of an edge change, "" for a vertex change. */
+	public String second(int i)
+	{
+		return second[i];
+	}
+
+	public float weight(int i)
+	{
+		return weights[i];
+	}
+
+	public void clear()
+	{
+		Arrays.fill(first, 0, size, null);
+		Arrays.fill(second, 0, size, null);
+		size = 0;
+	}
+}
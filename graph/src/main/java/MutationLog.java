@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead log of the changes made to the graph through
+// addedge, deleteedge, edgedown, edgeup, vertexdown and vertexup.
+// File layout, little-endian: header magic "GRAPHWAL", int format version,
+// int checkpoint generation, then one record per change:
+//   int payload length, int CRC32 of the payload,
+//   payload: byte op, int length + UTF-8 bytes of the first vertex,
+//            int length + UTF-8 bytes of the second vertex (may be empty),
+//            float weight (addedge only).
+// Records are appended to a memory buffer and a flusher thread writes and
+// fsyncs whatever has piled up, at most every flush interval. All changes
+// made while one fsync runs go out together with the next one, so the cost
+// of a sync is shared by every change in the batch (group commit). sync()
+// waits until every change appended so far is on disk.
+// The generation ties the log to the snapshot it applies on top of: a
+// checkpoint saves a snapshot with generation g + 1 and then starts an empty
+// log of generation g + 1. A log older than the snapshot is already part of
+// it and is skipped on recovery.
+final class MutationLog
+{
+	static final byte ADD_EDGE = 1;
+	static final byte DELETE_EDGE = 2;
+	static final byte EDGE_DOWN = 3;
+	static final byte EDGE_UP = 4;
+	static final byte VERTEX_DOWN = 5;
+	static final byte VERTEX_UP = 6;
+
+	private static final byte[] MAGIC = "GRAPHWAL".getBytes(StandardCharsets.US_ASCII);
+	private static final int FORMAT = 1;
+	private static final int HEADER = 16;
+	private static final int FLUSH_NOW = 1 << 20;  // pending bytes that wake the flusher
+
+	// Receives the records of a log being replayed
+	interface Replayer
+	{
+		void apply(byte op, String a, String b, float weight);
+	}
+
+	private final Path path;
+	private final long flushMillis;
+	private FileChannel ch;
+	private int generation;
+	private ByteBuffer pending = newBuffer(1 << 16);
+	private ByteBuffer writing = newBuffer(1 << 16);
+	private long appended;      // records appended
+	private long durable;       // records known to be on disk
+	private long sinceCheckpoint;
+	private int syncing;        // threads waiting in sync()
+	private boolean closed;
+	private IOException failure;
+	private final Thread flusher;
+	private final CRC32 crc = new CRC32();
+
+	private MutationLog(Path path, FileChannel ch, int generation, long flushMillis) {
+		this.path = path;
+		this.ch = ch;
+		this.generation = generation;
+		this.flushMillis = flushMillis;
+		flusher = new Thread(this::flushLoop, "wal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	private static ByteBuffer newBuffer(int size)
+	{
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Opens the log at file for appending. If it holds records of the given
+	 * snapshot generation they are handed to replayer first; a torn record
+	 * at the end, left by a crash in the middle of a write, is cut off. A
+	 * log of an older generation is replaced by an empty one.
+	 */
+	public static MutationLog open(String file, int generation, long flushMillis,
+			Replayer replayer) throws IOException
+	{
+		Path path = Paths.get(file).toAbsolutePath();
+		long end = -1;
+		if (Files.exists(path)) {
+			end = replay(path, generation, replayer);
+		}
+		if (end < 0) {
+			writeEmpty(path, generation);
+			end = HEADER;
+		}
+		FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE);
+		ch.truncate(end);
+		ch.position(end);
+		return new MutationLog(path, ch, generation, flushMillis);
+	}
+
+	// Replays the records of path if it is of the given generation. Returns
+	// the offset just past the last good record, or -1 if it is not usable
+	private static long replay(Path path, int generation, Replayer replayer)
+			throws IOException
+	{
+		try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = in.size();
+			if (size < HEADER)
+				return -1;
+			ByteBuffer h = newBuffer(HEADER);
+			while (h.hasRemaining() && in.read(h) > 0) {
+			}
+			h.flip();
+			byte[] magic = new byte[MAGIC.length];
+			h.get(magic);
+			if (!Arrays.equals(magic, MAGIC) || h.getInt() != FORMAT)
+				throw new GraphException("Not a graph write-ahead log: " + path);
+			int g = h.getInt();
+			if (g < generation)
+				return -1;
+			if (g > generation)
+				throw new GraphException("Write-ahead log " + path + " is newer ("
+						+ g + ") than its snapshot (" + generation + ")");
+
+			CRC32 crc = new CRC32();
+			long at = HEADER;
+			ByteBuffer buf = newBuffer(1 << 16);
+			buf.flip();
+			while (true) {
+				// ***refill so that a whole record is in the buffer
+				if (buf.remaining() < 8)
+					buf = fill(in, buf, at, 8);
+				if (buf.remaining() < 8)
+					return at;
+				int len = buf.getInt(buf.position());
+				if (len < 0 || at + 8 + len > size)
+					return at;
+				if (buf.remaining() < 8 + len)
+					buf = fill(in, buf, at, 8 + len);
+				buf.getInt();
+				int sum = buf.getInt();
+				crc.reset();
+				crc.update(buf.array(), buf.position(), len);
+				if ((int) crc.getValue() != sum)
+					return at;
+				int next = buf.position() + len;
+				byte op = buf.get();
+				String a = string(buf);
+				String b = string(buf);
+				float w = op == ADD_EDGE ? buf.getFloat() : 0;
+				buf.position(next);
+				replayer.apply(op, a, b, w);
+				at += 8 + len;
+			}
+		}
+	}
+
+	// Buffer holding the file from offset at onwards, at least need bytes of
+	// it unless the file ends first
+	private static ByteBuffer fill(FileChannel in, ByteBuffer buf, long at, int need)
+			throws IOException
+	{
+		ByteBuffer b = buf.capacity() >= need ? buf : newBuffer(Math.max(need, 2 * buf.capacity()));
+		if (b == buf)
+			b.compact();
+		else
+			b.put(buf);
+		while (b.hasRemaining()) {
+			if (in.read(b, at + b.position()) <= 0)
+				break;
+		}
+		b.flip();
+		return b;
+	}
+
+	private static String string(ByteBuffer buf)
+	{
+		int len = buf.getInt();
+		String s = new String(buf.array(), buf.position(), len, StandardCharsets.UTF_8);
+		buf.position(buf.position() + len);
+		return s;
+	}
+
+	// Atomically replaces path by an empty log of the given generation
+	private static void writeEmpty(Path path, int generation) throws IOException
+	{
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer h = newBuffer(HEADER);
+			h.put(MAGIC).putInt(FORMAT).putInt(generation).flip();
+			while (h.hasRemaining())
+				out.write(h);
+			out.force(true);
+		}
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Appends one change; it is on disk within the flush interval, or once
+	 * sync() returns.
+	 */
+	public synchronized void append(byte op, String a, String b, float weight)
+	{
+		if (closed)
+			throw new GraphException("Write-ahead log is closed");
+		byte[] ab = a.getBytes(StandardCharsets.UTF_8);
+		byte[] bb = b.getBytes(StandardCharsets.UTF_8);
+		int len = 1 + 4 + ab.length + 4 + bb.length + (op == ADD_EDGE ? 4 : 0);
+		if (pending.remaining() < 8 + len) {
+			ByteBuffer grown = newBuffer(Math.max(2 * pending.capacity(),
+					pending.position() + 8 + len));
+			pending.flip();
+			pending = grown.put(pending);
+		}
+		int start = pending.position();
+		pending.putInt(len).putInt(0).put(op);
+		pending.putInt(ab.length).put(ab).putInt(bb.length).put(bb);
+		if (op == ADD_EDGE)
+			pending.putFloat(weight);
+		crc.reset();
+		crc.update(pending.array(), start + 8, len);
+		pending.putInt(start + 4, (int) crc.getValue());
+		appended++;
+		sinceCheckpoint++;
+		if (start == 0 || pending.position() >= FLUSH_NOW)
+			notifyAll();
+	}
+
+	/** Blocks until every change appended so far is durable. */
+	public synchronized void sync() throws IOException
+	{
+		long target = appended;
+		syncing++;
+		notifyAll();
+		try {
+			while (durable < target && failure == null && !closed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while syncing the log");
+				}
+			}
+		} finally {
+			syncing--;
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	public synchronized long getAppended()
+	{
+		return appended;
+	}
+
+	public synchronized long getSinceCheckpoint()
+	{
+		return sinceCheckpoint;
+	}
+
+	public synchronized int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * Starts over with an empty log of the next generation, once the caller
+	 * has saved a snapshot of that generation. Every change appended before
+	 * must be in the snapshot, and the caller must keep new changes out
+	 * until this returns.
+	 */
+	public synchronized void checkpoint(int next) throws IOException
+	{
+		sync();
+		writeEmpty(path, next);
+		ch.close();
+		ch = FileChannel.open(path, StandardOpenOption.WRITE);
+		ch.position(HEADER);
+		generation = next;
+		sinceCheckpoint = 0;
+	}
+
+	/** Syncs everything and stops the flusher. */
+	public void close()
+	{
+		synchronized (this) {
+			if (closed)
+				return;
+		}
+		try {
+			sync();
+		} catch (IOException e) {
+			System.err.println(e);
+		}
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			flusher.join();
+			ch.close();
+		} catch (InterruptedException | IOException e) {
+			System.err.println(e);
+		}
+	}
+
+	// Writes and fsyncs the pending records in batches until closed
+	private void flushLoop()
+	{
+		while (true) {
+			FileChannel out;
+			long target;
+			synchronized (this) {
+				while (pending.position() == 0 && !closed) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (pending.position() == 0)
+					return;
+				// ***give more changes flushMillis to join this batch, unless
+				// ***someone is already waiting in sync() or the buffer is full
+				if (flushMillis > 0 && syncing == 0 && pending.position() < FLUSH_NOW) {
+					try {
+						wait(flushMillis);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				ByteBuffer b = writing;
+				writing = pending;
+				pending = b;
+				pending.clear();
+				target = appended;
+				out = ch;
+			}
+			try {
+				writing.flip();
+				while (writing.hasRemaining())
+					out.write(writing);
+				out.force(false);
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+					notifyAll();
+				}
+				return;
+			}
+			synchronized (this) {
+				durable = target;
+				notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,503 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Interns vertex names into dense int ids. All names live in one byte arena
+// in UTF-8, name id at bytes [start[id], start[id + 1]), so a dictionary of
+// millions of names is two arrays rather than millions of String objects.
+// Lookups go through an open-addressing table (linear probing) of id + 1
+// keyed on a hash of the name's code points, which is the same whether the
+// name comes as UTF-8 bytes or as a String, so find hashes and compares a
+// CharSequence in place and allocates nothing.
+// ranks() sorts the ids once into String.compareTo order, comparing code
+// points in the arena, and sorted() copies the names into that order, which
+// is how CsrGraph numbers its vertices unless VertexOrder relabels them.
+// A dictionary is appended to by one thread at a time; finds may run on
+// other threads meanwhile and see every name whose intern has returned.
+// A dictionary made by over() reads an arena that already exists, such as
+// the name section of a mapped snapshot, and builds its table on first use.
+// ******************PUBLIC OPERATIONS*******************************************************************
+// int intern( String s ), int intern( ByteBuffer b, int from, int to )---->id of a name, added if new
+// int find( CharSequence s )---->id of a name, or -1
+// String name( int id )---->the name of an id
+// int[] ranks()---->id -> position in name order
+// NameDictionary sorted()---->copy whose ids are the positions in name order
+// NameDictionary reordered( int[] order )---->copy with the ids in the given order
+final class NameDictionary
+{
+	private static final int[] NO_HASHES = new int[0];
+
+	private ByteBuffer bytes;      // the names, UTF-8, back to back
+	private IntBuffer start;       // id -> offset in bytes; start[size] = bytes used
+	private int[] hashes;          // id -> hash of the name
+	private volatile int[] table;  // id + 1 by hash, 0 free; null until built
+	private volatile int size;
+	private final boolean growable;
+
+	private int[] ranks;           // cached ranks(), valid for rankedSize names
+	private int rankedSize = -1;
+	private NameDictionary sorted; // cached sorted()
+
+	/** An empty dictionary. */
+	public NameDictionary() {
+		bytes = ByteBuffer.wrap(new byte[1 << 12]);
+		start = IntBuffer.wrap(new int[64]);
+		hashes = new int[64];
+		table = new int[128];
+		growable = true;
+	}
+
+	// Read-only dictionary over an arena; the table is built on first use
+	private NameDictionary(IntBuffer start, ByteBuffer bytes, int[] hashes) {
+		this.start = start;
+		this.bytes = bytes;
+		this.hashes = hashes;
+		size = start.limit() - 1;
+		growable = false;
+	}
+
+	/**
+	 * Read-only dictionary over name offsets and UTF-8 bytes laid out the
+	 * way copyTo writes them, e.g. mapped from a snapshot file.
+	 */
+	public static NameDictionary over(IntBuffer start, ByteBuffer bytes)
+	{
+		return new NameDictionary(start, bytes, null);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/** Bytes taken by all names. */
+	public int byteLength()
+	{
+		return start.get(size);
+	}
+
+	/** Returns the id of name, adding it if it is not present yet. */
+	public int intern(String name)
+	{
+		int id = find(name);
+		if (id >= 0)
+			return id;
+		byte[] b = name.getBytes(StandardCharsets.UTF_8);
+		return add(ByteBuffer.wrap(b), 0, b.length, hash(name));
+	}
+
+	/**
+	 * Returns the id of the name held as UTF-8 in b[from, to), adding it if
+	 * it is not present yet. Malformed bytes are taken the way new String
+	 * decodes them.
+	 */
+	public int intern(ByteBuffer b, int from, int to)
+	{
+		int h = hash(b, from, to);
+		if (h == INVALID)
+			return intern(text(b, from, to));
+		int id = find(b, from, to, h);
+		return id >= 0 ? id : add(b, from, to, h);
+	}
+
+	/** Same as intern(b, from, to) for the name of id in other. */
+	public int intern(NameDictionary other, int id)
+	{
+		int from = other.start.get(id);
+		int to = other.start.get(id + 1);
+		int h = other.hashes()[id];
+		int found = find(other.bytes, from, to, h);
+		return found >= 0 ? found : add(other.bytes, from, to, h);
+	}
+
+	/** Returns the id of name, or -1 if it is not present. */
+	public int find(CharSequence name)
+	{
+		int n = size;
+		int[] t = table();
+		int[] hs = hashes;
+		int h = hash(name);
+		int mask = t.length - 1;
+		for (int slot = h & mask; t[slot] != 0; slot = (slot + 1) & mask) {
+			int id = t[slot] - 1;
+			if (id < n && hs[id] == h && equal(id, name))
+				return id;
+		}
+		return -1;
+	}
+
+	// Id of the valid UTF-8 name b[from, to) with hash h, or -1
+	private int find(ByteBuffer b, int from, int to, int h)
+	{
+		int n = size;
+		int[] t = table();
+		int[] hs = hashes;
+		int mask = t.length - 1;
+		for (int slot = h & mask; t[slot] != 0; slot = (slot + 1) & mask) {
+			int id = t[slot] - 1;
+			if (id < n && hs[id] == h && equal(id, b, from, to))
+				return id;
+		}
+		return -1;
+	}
+
+	/** Offset of the name of id in the arena; start(size()) is its end. */
+	public int start(int id)
+	{
+		return start.get(id);
+	}
+
+	/** Copies len arena bytes from offset from into dst[off ...]. */
+	public void getBytes(int from, byte[] dst, int off, int len)
+	{
+		bytes.get(from, dst, off, len);
+	}
+
+	public String name(int id)
+	{
+		int from = start.get(id);
+		return text(bytes, from, start.get(id + 1));
+	}
+
+	/**
+	 * Position of every id in String.compareTo order of the names. Computed
+	 * once for the names present and kept until another one is added.
+	 */
+	public synchronized int[] ranks()
+	{
+		int n = size;
+		if (rankedSize != n) {
+			int[] order = new int[n];
+			for (int i = 0; i < n; i++)
+				order[i] = i;
+			sort(order, new int[n], 0, n);
+			ranks = new int[n];
+			for (int i = 0; i < n; i++)
+				ranks[order[i]] = i;
+			rankedSize = n;
+			sorted = null;
+		}
+		return ranks;
+	}
+
+	/**
+	 * Copy of this dictionary in which the id of every name is its position
+	 * in name order. Kept until another name is added.
+	 */
+	public synchronized NameDictionary sorted()
+	{
+		int[] rank = ranks();
+		if (sorted == null) {
+			int n = size;
+			int[] order = new int[n];
+			for (int i = 0; i < n; i++)
+				order[rank[i]] = i;
+			sorted = reordered(order);
+		}
+		return sorted;
+	}
+
+	/**
+	 * Copy of this dictionary in which name order[i] gets id i; order must
+	 * be a permutation of the ids.
+	 */
+	public NameDictionary reordered(int[] order)
+	{
+		int n = order.length;
+		int[] hashes = hashes();
+		int[] offsets = new int[n + 1];
+		byte[] b = new byte[byteLength()];
+		int[] hs = new int[n];
+		int at = 0;
+		for (int i = 0; i < n; i++) {
+			int id = order[i];
+			int from = start.get(id);
+			int len = start.get(id + 1) - from;
+			offsets[i] = at;
+			bytes.get(from, b, at, len);
+			hs[i] = hashes[id];
+			at += len;
+		}
+		offsets[n] = at;
+		return new NameDictionary(IntBuffer.wrap(offsets), ByteBuffer.wrap(b), hs);
+	}
+
+	/**
+	 * Writes the name offsets (size() + 1 entries) and the bytes
+	 * (byteLength()) into the given buffers, from index 0.
+	 */
+	public void copyTo(IntBuffer offsets, ByteBuffer b)
+	{
+		offsets.put(0, start, 0, size + 1);
+		b.put(0, bytes, 0, byteLength());
+	}
+
+	// Appends a new name, valid UTF-8 in b[from, to) with hash h
+	private int add(ByteBuffer b, int from, int to, int h)
+	{
+		if (!growable)
+			throw new GraphException("Names of a snapshot cannot be added to");
+		int id = size;
+		int len = to - from;
+		int used = start.get(id);
+		if (used + len > bytes.capacity() || used + len < 0) {
+			if ((long) used + len > Integer.MAX_VALUE)
+				throw new GraphException("Vertex names too long");
+			byte[] grown = new byte[(int) Math.min(Integer.MAX_VALUE - 8,
+					Math.max(used + len, 2L * bytes.capacity()))];
+			bytes.get(0, grown, 0, used);
+			bytes = ByteBuffer.wrap(grown);
+		}
+		for (int i = 0; i < len; i++)
+			bytes.put(used + i, b.get(from + i));
+		if (id + 2 > start.capacity()) {
+			start = IntBuffer.wrap(Arrays.copyOf(start.array(), 2 * start.capacity()));
+			hashes = Arrays.copyOf(hashes, 2 * hashes.length);
+		}
+		start.put(id + 1, used + len);
+		hashes[id] = h;
+		if (2 * (id + 1) > table.length)
+			table = buildTable(id + 1, hashes, 2 * table.length);
+		else
+			insert(table, id, h);
+		size = id + 1;   // publishes the name to concurrent finds
+		return id;
+	}
+
+	private int[] table()
+	{
+		int[] t = table;
+		return t != null ? t : buildTable();
+	}
+
+	private int[] hashes()
+	{
+		table();
+		return hashes;
+	}
+
+	// Hashes every name of a read-only dictionary and indexes them
+	private synchronized int[] buildTable()
+	{
+		if (table == null) {
+			int n = size;
+			if (hashes == null) {
+				int[] hs = n == 0 ? NO_HASHES : new int[n];
+				for (int id = 0; id < n; id++)
+					hs[id] = hash(bytes, start.get(id), start.get(id + 1));
+				hashes = hs;
+			}
+			int cap = Integer.highestOneBit(Math.max(4 * n, 16) - 1) << 1;
+			table = buildTable(n, hashes, cap);
+		}
+		return table;
+	}
+
+	private static int[] buildTable(int n, int[] hashes, int capacity)
+	{
+		int[] t = new int[capacity];
+		for (int id = 0; id < n; id++)
+			insert(t, id, hashes[id]);
+		return t;
+	}
+
+	private static void insert(int[] t, int id, int h)
+	{
+		int mask = t.length - 1;
+		int slot = h & mask;
+		while (t[slot] != 0)
+			slot = (slot + 1) & mask;
+		t[slot] = id + 1;
+	}
+
+	// ***hashing and comparing by code points, so bytes and chars agree
+
+	private static final int INVALID = 0x80000000;   // never a finished hash
+
+	private static int finish(int h)
+	{
+		h ^= h >>> 16;
+		return h == INVALID ? 0 : h;
+	}
+
+	private static int hash(CharSequence s)
+	{
+		int h = 1;
+		for (int i = 0; i < s.length();) {
+			int cp = codePoint(s, i);
+			i += cp >= 0x10000 ? 2 : 1;
+			h = 31 * h + cp;
+		}
+		return finish(h);
+	}
+
+	// Hash of the UTF-8 bytes b[from, to), or INVALID if they are malformed
+	private static int hash(ByteBuffer b, int from, int to)
+	{
+		int h = 1;
+		for (int i = from; i < to;) {
+			int c = b.get(i);
+			if (c >= 0) {
+				h = 31 * h + c;
+				i++;
+				continue;
+			}
+			int d = decode(b, i, to);
+			if (d < 0)
+				return INVALID;
+			h = 31 * h + (d & 0x1FFFFF);
+			i += d >>> 21;
+		}
+		return finish(h);
+	}
+
+	// Code point at s[i]; an unpaired surrogate counts as '?', the way
+	// String.getBytes encodes it
+	private static int codePoint(CharSequence s, int i)
+	{
+		char c = s.charAt(i);
+		if (!Character.isSurrogate(c))
+			return c;
+		if (Character.isHighSurrogate(c) && i + 1 < s.length()
+				&& Character.isLowSurrogate(s.charAt(i + 1)))
+			return Character.toCodePoint(c, s.charAt(i + 1));
+		return '?';
+	}
+
+	// Decodes the UTF-8 sequence at b[i]: the code point in the low 21 bits
+	// and its length in bytes above them, or -1 if it is malformed
+	private static int decode(ByteBuffer b, int i, int to)
+	{
+		int b0 = b.get(i) & 0xFF;
+		if (b0 < 0x80)
+			return 1 << 21 | b0;
+		int len = b0 >= 0xF0 ? 4 : b0 >= 0xE0 ? 3 : 2;
+		if (b0 < 0xC2 || b0 > 0xF4 || i + len > to)
+			return -1;
+		int cp = b0 & (0x7F >> len);
+		for (int k = 1; k < len; k++) {
+			int c = b.get(i + k) & 0xFF;
+			if ((c & 0xC0) != 0x80)
+				return -1;
+			cp = cp << 6 | (c & 0x3F);
+		}
+		// ***overlong forms, surrogates and values past U+10FFFF
+		if (len == 3 && (cp < 0x800 || (cp >= 0xD800 && cp <= 0xDFFF)))
+			return -1;
+		if (len == 4 && (cp < 0x10000 || cp > 0x10FFFF))
+			return -1;
+		return len << 21 | cp;
+	}
+
+	private boolean equal(int id, ByteBuffer b, int from, int to)
+	{
+		int s = start.get(id);
+		if (start.get(id + 1) - s != to - from)
+			return false;
+		for (int i = from; i < to; i++) {
+			if (bytes.get(s++) != b.get(i))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean equal(int id, CharSequence name)
+	{
+		int i = start.get(id);
+		int end = start.get(id + 1);
+		int j = 0;
+		int len = name.length();
+		while (i < end && j < len) {
+			int c = bytes.get(i);
+			if (c >= 0) {
+				if (name.charAt(j) != c)
+					return false;
+				i++;
+				j++;
+				continue;
+			}
+			int d = decode(bytes, i, end);
+			int cp = codePoint(name, j);
+			if ((d & 0x1FFFFF) != cp)
+				return false;
+			i += d >>> 21;
+			j += cp >= 0x10000 ? 2 : 1;
+		}
+		return i == end && j == len;
+	}
+
+	// Compares the names of ids a and b the way String.compareTo does: by
+	// UTF-16 units, which orders U+E000..U+FFFF after the supplementary
+	// code points that UTF-8 puts last
+	private int compare(int a, int b)
+	{
+		int i = start.get(a);
+		int ie = start.get(a + 1);
+		int j = start.get(b);
+		int je = start.get(b + 1);
+		while (i < ie && j < je) {
+			int x = bytes.get(i);
+			int y = bytes.get(j);
+			if (x >= 0 && y >= 0) {
+				if (x != y)
+					return x - y;
+				i++;
+				j++;
+				continue;
+			}
+			int dx = decode(bytes, i, ie);
+			int dy = decode(bytes, j, je);
+			int kx = utf16Key(dx & 0x1FFFFF);
+			int ky = utf16Key(dy & 0x1FFFFF);
+			if (kx != ky)
+				return kx < ky ? -1 : 1;
+			i += dx >>> 21;
+			j += dy >>> 21;
+		}
+		if (i == ie)
+			return j == je ? 0 : -1;
+		return 1;
+	}
+
+	private static int utf16Key(int cp)
+	{
+		return cp >= 0xE000 && cp <= 0xFFFF ? cp + 0x200000 : cp;
+	}
+
+	// Merge sort of ids[from, to) by name, tmp as scratch
+	private void sort(int[] ids, int[] tmp, int from, int to)
+	{
+		if (to - from < 16) {
+			for (int i = from + 1; i < to; i++) {
+				int id = ids[i];
+				int j = i - 1;
+				while (j >= from && compare(ids[j], id) > 0) {
+					ids[j + 1] = ids[j];
+					j--;
+				}
+				ids[j + 1] = id;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		sort(ids, tmp, from, mid);
+		sort(ids, tmp, mid, to);
+		if (compare(ids[mid - 1], ids[mid]) <= 0)
+			return;
+		System.arraycopy(ids, from, tmp, from, to - from);
+		for (int i = from, a = from, b = mid; i < to; i++) {
+			if (b >= to || (a < mid && compare(tmp[a], tmp[b]) <= 0))
+				ids[i] = tmp[a++];
+			else
+				ids[i] = tmp[b++];
+		}
+	}
+
+	private static String text(ByteBuffer b, int from, int to)
+	{
+		byte[] a = new byte[to - from];
+		b.get(from, a);
+		return new String(a, StandardCharsets.UTF_8);
+	}
+}
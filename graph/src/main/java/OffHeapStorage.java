@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Allocates the arrays of CsrGraph snapshots outside the Java heap, so a
+// graph larger than the heap can be loaded and queried and the collector
+// never has to trace or copy its edges. Every array, names included, is
+// one buffer: direct memory by default, or, given a directory, a temporary
+// file there mapped read-write and unlinked at once, so the page cache
+// holds it and the OS can write it out under memory pressure. Either way
+// the memory goes back when the snapshot owning the buffer is collected.
+// Direct memory is capped by -XX:MaxDirectMemorySize, which defaults to the
+// heap size; file-backed storage has no such cap.
+// A buffer is indexed by int, so no one array can pass 2 GB: at most
+// 536870911 edges (int targets and float weights of 4 bytes) and as many
+// vertices. A larger graph fails with a GraphException naming the limit as
+// soon as the first array that does not fit is allocated.
+// Snapshots built here are read through the same buffer accessors as a
+// snapshot mapped by GraphSnapshot, without any per-edge objects.
+// ******************PUBLIC OPERATIONS*******************************************************************
+// IntBuffer ints( long n ), FloatBuffer floats( long n ), LongBuffer longs( long n )---->zeroed arrays
+// CsrGraph graph( NameDictionary names, ... )---->snapshot over off-heap arrays, reverse edges added
+// CsrGraph copyOf( CsrGraph g )---->moves a heap snapshot off the heap
+final class OffHeapStorage
+{
+	private final Path dir;   // null for direct memory
+
+	/** Storage in direct memory, or in files under dir if it is not empty. */
+	public OffHeapStorage(String dir) {
+		this.dir = dir == null || dir.isEmpty() ? null : Paths.get(dir);
+		if (this.dir != null && !Files.isDirectory(this.dir))
+			throw new GraphException("Not a directory: " + dir);
+	}
+
+	public String toString()
+	{
+		return dir == null ? "direct memory" : "files in " + dir;
+	}
+
+	/** Zeroed buffer of the given no. of bytes in native byte order. */
+	public ByteBuffer allocate(long bytes)
+	{
+		if (bytes > Integer.MAX_VALUE)
+			throw new GraphException("Off-heap array of " + bytes
+					+ " bytes is over the 2 GB limit of one buffer");
+		if (dir == null)
+			return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+		try {
+			Path file = Files.createTempFile(dir, "graph", ".mem");
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				// ***the mapping outlives the channel and the file's name
+				return ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes)
+						.order(ByteOrder.nativeOrder());
+			} finally {
+				Files.delete(file);
+			}
+		} catch (IOException e) {
+			throw new GraphException("Cannot map storage in " + dir + ": " + e);
+		}
+	}
+
+	public IntBuffer ints(long count)
+	{
+		return allocate(count, 4).asIntBuffer();
+	}
+
+	public FloatBuffer floats(long count)
+	{
+		return allocate(count, 4).asFloatBuffer();
+	}
+
+	public LongBuffer longs(long count)
+	{
+		return allocate(count, 8).asLongBuffer();
+	}
+
+	// Buffer of count entries of size bytes, refused up front when it would
+	// pass the 2 GB a buffer can hold
+	private ByteBuffer allocate(long count, int size)
+	{
+		if (count > Integer.MAX_VALUE / size)
+			throw new GraphException("Off-heap arrays are limited to 2 GB each, at most "
+					+ Integer.MAX_VALUE / size + " entries of " + size + " bytes; "
+					+ count + " do not fit. Load a graph this large without --offheap");
+		return allocate(count * size);
+	}
+
+	/** Off-heap copy of an int array. */
+	public IntBuffer copyOf(int[] a)
+	{
+		IntBuffer b = ints(a.length);
+		b.put(0, a);
+		return b;
+	}
+
+	/**
+	 * Snapshot over the given off-heap forward arrays, with byName as in
+	 * CsrGraph. The name arena is copied into the storage and the reverse
+	 * adjacency is built there by a counting sort on the heads.
+	 */
+	public CsrGraph graph(NameDictionary names, IntBuffer offsets, IntBuffer targets,
+			FloatBuffer weights, LongBuffer vertexDown, LongBuffer edgeDown, IntBuffer byName)
+	{
+		int n = names.size();
+		int m = targets.limit();
+		IntBuffer nameStart = ints(n + 1);
+		ByteBuffer nameBytes = allocate(names.byteLength());
+		names.copyTo(nameStart, nameBytes);
+
+		int[] fill = new int[n + 1];
+		for (int e = 0; e < m; e++)
+			fill[targets.get(e) + 1]++;
+		for (int v = 0; v < n; v++)
+			fill[v + 1] += fill[v];
+		IntBuffer rOffsets = copyOf(fill);
+		IntBuffer rSources = ints(m);
+		IntBuffer rEdges = ints(m);
+		for (int v = 0; v < n; v++) {
+			for (int e = offsets.get(v); e < offsets.get(v + 1); e++) {
+				int r = fill[targets.get(e)]++;
+				rSources.put(r, v);
+				rEdges.put(r, e);
+			}
+		}
+		return new CsrGraph(NameDictionary.over(nameStart, nameBytes), offsets, targets, weights,
+				rOffsets, rSources, rEdges, vertexDown, edgeDown, byName);
+	}
+
+	/** Off-heap copy of g, down states included. */
+	public CsrGraph copyOf(CsrGraph g)
+	{
+		int n = g.vertexCount();
+		int m = g.edgeCount();
+		IntBuffer offsets = ints(n + 1);
+		IntBuffer targets = ints(m);
+		FloatBuffer weights = floats(m);
+		LongBuffer vertexDown = longs(CsrGraph.words(n));
+		LongBuffer edgeDown = longs(CsrGraph.words(m));
+		for (int v = 0; v < n; v++) {
+			offsets.put(v, g.edgeStart(v));
+			if (g.isVertexDown(v))
+				vertexDown.put(v >>> 6, vertexDown.get(v >>> 6) | 1L << v);
+		}
+		offsets.put(n, m);
+		for (int e = 0; e < m; e++) {
+			targets.put(e, g.target(e));
+			weights.put(e, g.weight(e));
+			if (g.isEdgeDown(e))
+				edgeDown.put(e >>> 6, edgeDown.get(e >>> 6) | 1L << e);
+		}
+		IntBuffer byName = null;
+		if (!g.inNameOrder()) {
+			byName = ints(n);
+			for (int i = 0; i < n; i++)
+				byName.put(i, g.byName(i));
+		}
+		return graph(g.names(), offsets, targets, weights, vertexDown, edgeDown, byName);
+	}
+}
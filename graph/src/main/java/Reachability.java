@@ -0,0 +1,150 @@
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+// Reachability over the up vertices and up edges of one CsrGraph snapshot.
+// Strongly connected components are found once with Kosaraju's algorithm on
+// the iterative Traversal engine: one DFS pass records finishing order, a
+// second pass over the reversed edges in decreasing finishing order collects
+// one component per tree. Components come out in topological order of the
+// condensation DAG, so every edge between components points to a higher
+// number. Each component then gets a bitset of the components it reaches,
+// filled from the last component back as the union of its successors'
+// finished sets. "What is reachable from X" is a scan over reach[comp[X]]
+// instead of a fresh DFS from X.
+final class Reachability
+{
+	private final CsrGraph graph;
+	private final int[] comp;        // vertex id -> component, -1 for down vertices
+	private final int components;
+	private final long[][] reach;    // component -> bitset of reachable components
+
+	public Reachability(CsrGraph g) {
+		graph = g;
+		final int n = g.vertexCount();
+		comp = new int[n];
+		Arrays.fill(comp, -1);
+
+		// ***pass 1: vertices in increasing DFS finishing time
+		final int[] order = new int[n];
+		final int[] finished = new int[1];
+		Traversal t = new Traversal(g);
+		t.newEpoch();
+		Traversal.Visitor record = new Traversal.Visitor() {
+			public void enter(int v, int parent)
+			{
+			}
+
+			public void leave(int v)
+			{
+				order[finished[0]++] = v;
+			}
+		};
+		for (int v = 0; v < n; v++) {
+			t.dfs(v, false, record);
+		}
+
+		// ***pass 2: each tree of the reversed graph is one component
+		t.newEpoch();
+		final int[] count = new int[1];
+		Traversal.Visitor assign = (v, parent) -> comp[v] = count[0];
+		for (int i = finished[0] - 1; i >= 0; i--) {
+			if (!t.visited(order[i])) {
+				t.dfs(order[i], true, assign);
+				count[0]++;
+			}
+		}
+		components = count[0];
+
+		reach = new long[components][];
+		int[] first = new int[components + 1];
+		int[] members = sortByComponent(first);
+		int words = CsrGraph.words(components);
+		for (int c = components - 1; c >= 0; c--) {
+			long[] bits = new long[words];
+			CsrGraph.set(bits, c);
+			for (int i = first[c]; i < first[c + 1]; i++) {
+				int v = members[i];
+				for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+					int w = g.target(e);
+					if (g.isEdgeDown(e) || g.isVertexDown(w))
+						continue;
+					int d = comp[w];
+					if (d != c && !CsrGraph.get(bits, d)) {
+						long[] other = reach[d];
+						for (int k = 0; k < words; k++)
+							bits[k] |= other[k];
+					}
+				}
+			}
+			reach[c] = bits;
+		}
+	}
+
+	// Vertex ids grouped by component; first[c] is where component c starts
+	private int[] sortByComponent(int[] first)
+	{
+		int n = comp.length;
+		for (int v = 0; v < n; v++) {
+			if (comp[v] >= 0)
+				first[comp[v] + 1]++;
+		}
+		for (int c = 0; c < components; c++)
+			first[c + 1] += first[c];
+		int[] fill = first.clone();
+		int[] members = new int[first[components]];
+		for (int v = 0; v < n; v++) {
+			if (comp[v] >= 0)
+				members[fill[comp[v]]++] = v;
+		}
+		return members;
+	}
+
+	public CsrGraph getGraph()
+	{
+		return graph;
+	}
+
+	public int getComponents()
+	{
+		return components;
+	}
+
+	// Component of vertex v, or -1 if v is down
+	public int component(int v)
+	{
+		return comp[v];
+	}
+
+	/** True if there is a path of up edges and up vertices from v to w. */
+	public boolean reaches(int v, int w)
+	{
+		if (comp[v] < 0 || comp[w] < 0)
+			return false;
+		return CsrGraph.get(reach[comp[v]], comp[w]);
+	}
+
+	/**
+	 * Prints, for every up vertex in name order, the vertices reachable from
+	 * it in name order; the same output reachable_vertices gives.
+	 */
+	public void print(PrintWriter out)
+	{
+		int n = comp.length;
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			int s = graph.byName(i);
+			if (comp[s] < 0)
+				continue;
+			long[] bits = reach[comp[s]];
+			sb.setLength(0);
+			sb.append(graph.name(s));
+			// ***walking in name order keeps the list sorted
+			for (int j = 0; j < n; j++) {
+				int v = graph.byName(j);
+				if (v != s && comp[v] >= 0 && CsrGraph.get(bits, comp[v]))
+					sb.append("\n     ").append(graph.name(v));
+			}
+			out.println(sb);
+		}
+	}
+}
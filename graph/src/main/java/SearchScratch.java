@@ -0,0 +1,95 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Per-thread scratch state for shortest path queries over a CsrGraph.
+// A distance/predecessor entry is only valid while its stamp matches the
+// current generation, so starting a query bumps one counter instead of
+// resetting all V entries. Scratch objects are pooled per thread and handed
+// out stack-wise, so a query that starts another query on the same thread
+// gets its own buffers.
+final class SearchScratch
+{
+	private static final ThreadLocal<ArrayList<SearchScratch>> POOL =
+			ThreadLocal.withInitial(ArrayList::new);
+	private static final ThreadLocal<int[]> IN_USE =
+			ThreadLocal.withInitial(() -> new int[1]);
+
+	private float[] dist = new float[0];
+	private int[] prev = new int[0];
+	private int[] stamp = new int[0];
+	private int generation = 0;
+	final DaryHeap heap = new DaryHeap(0);
+	long scanned;   // edges the search looked at, counted when Stats.ENABLED
+	private boolean counted; // query work, added to Stats on release
+
+	private SearchScratch() {
+	}
+
+	/**
+	 * Hands out a cleared scratch object able to hold n vertices. It must be
+	 * given back with release() once the query is done with it. Only the
+	 * searches of counted scratch show in Stats, so preprocessing (witness
+	 * searches, landmark distances) is not reported as query work.
+	 */
+	static SearchScratch acquire(int n, boolean counted)
+	{
+		ArrayList<SearchScratch> pool = POOL.get();
+		int[] inUse = IN_USE.get();
+		if (inUse[0] == pool.size()) {
+			pool.add(new SearchScratch());
+		}
+		SearchScratch s = pool.get(inUse[0]++);
+		s.begin(n);
+		s.counted = counted;
+		return s;
+	}
+
+	void release()
+	{
+		if (Stats.ENABLED && counted)
+			Stats.search(heap, scanned);
+		heap.clear();
+		IN_USE.get()[0]--;
+	}
+
+	private void begin(int n)
+	{
+		if (stamp.length < n) {
+			dist = new float[n];
+			prev = new int[n];
+			stamp = new int[n];
+			generation = 0;
+		}
+		heap.ensureCapacity(n);
+		heap.clear();
+		heap.resetCounts();
+		scanned = 0;
+		if (++generation == Integer.MAX_VALUE) {
+			// ***stamps wrapped around, so this is the one time they are cleared
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+	}
+
+	boolean reached(int v)
+	{
+		return stamp[v] == generation;
+	}
+
+	float dist(int v)
+	{
+		return stamp[v] == generation ? dist[v] : Graph.INFINITY;
+	}
+
+	int prev(int v)
+	{
+		return stamp[v] == generation ? prev[v] : -1;
+	}
+
+	void set(int v, float d, int p)
+	{
+		stamp[v] = generation;
+		dist[v] = d;
+		prev[v] = p;
+	}
+}
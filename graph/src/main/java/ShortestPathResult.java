@@ -0,0 +1,88 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Immutable answer to a point-to-point shortest path query: the vertices on
+// the path from source to target, the distance at which each of them is
+// reached (the predecessor of path[i] is path[i - 1]) and the number of
+// vertices the search settled to find it.
+final class ShortestPathResult
+{
+	private final String source;
+	private final String target;
+	private final String[] path;      // empty when target is unreachable
+	private final float[] distances;  // distance from source to path[i]
+	private final int settled;
+
+	ShortestPathResult(String source, String target, String[] path,
+			float[] distances, int settled) {
+		this.source = source;
+		this.target = target;
+		this.path = path;
+		this.distances = distances;
+		this.settled = settled;
+	}
+
+	static ShortestPathResult unreachable(String source, String target, int settled)
+	{
+		return new ShortestPathResult(source, target, new String[0], new float[0], settled);
+	}
+
+	public String getSource()
+	{
+		return source;
+	}
+
+	public String getTarget()
+	{
+		return target;
+	}
+
+	public boolean isReachable()
+	{
+		return path.length > 0;
+	}
+
+	// Total distance of the path, or Graph.INFINITY when unreachable
+	public float getDistance()
+	{
+		return isReachable() ? distances[distances.length - 1] : Graph.INFINITY;
+	}
+
+	public List<String> getPath()
+	{
+		return Collections.unmodifiableList(Arrays.asList(path));
+	}
+
+	// Distance from the source to the i-th vertex of the path
+	public float getDistance(int i)
+	{
+		return distances[i];
+	}
+
+	// Predecessor of the i-th vertex of the path, null for the source
+	public String getPredecessor(int i)
+	{
+		return i == 0 ? null : path[i - 1];
+	}
+
+	public int getSettled()
+	{
+		return settled;
+	}
+
+	/** Formats the path the way the path command prints it. */
+	@Override
+	public String toString()
+	{
+		if (!isReachable())
+			return target + " is unreachable";
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < path.length; i++) {
+			if (i > 0)
+				sb.append("  ");
+			sb.append(path[i]);
+		}
+		return sb.append(' ').append(getDistance()).toString();
+	}
+}
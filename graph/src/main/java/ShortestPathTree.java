@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+// Immutable single-source shortest path tree over a CsrGraph, held as one
+// distance and one predecessor entry per vertex id.
+final class ShortestPathTree
+{
+	private final CsrGraph graph;
+	private final int source;
+	private final float[] dist;   // Graph.INFINITY when unreachable
+	private final int[] prev;     // -1 for the source and unreachable vertices
+
+	ShortestPathTree(CsrGraph graph, int source, float[] dist, int[] prev) {
+		this.graph = graph;
+		this.source = source;
+		this.dist = dist;
+		this.prev = prev;
+	}
+
+	// Copies the entries reached by the search held in scratch
+	static ShortestPathTree copyOf(CsrGraph graph, int source, SearchScratch s)
+	{
+		int n = graph.vertexCount();
+		float[] dist = new float[n];
+		int[] prev = new int[n];
+		Arrays.fill(dist, Graph.INFINITY);
+		Arrays.fill(prev, -1);
+		for (int v = 0; v < n; v++) {
+			if (s.reached(v)) {
+				dist[v] = s.dist(v);
+				prev[v] = s.prev(v);
+			}
+		}
+		return new ShortestPathTree(graph, source, dist, prev);
+	}
+
+	public CsrGraph getGraph()
+	{
+		return graph;
+	}
+
+	public int getSource()
+	{
+		return source;
+	}
+
+	public float distance(int v)
+	{
+		return dist[v];
+	}
+
+	public int predecessor(int v)
+	{
+		return prev[v];
+	}
+
+	public boolean isReachable(int v)
+	{
+		return dist[v] != Graph.INFINITY;
+	}
+
+	/** Extracts the path from the source to target out of the tree. */
+	public ShortestPathResult pathTo(int target)
+	{
+		String s = graph.name(source);
+		String t = graph.name(target);
+		if (!isReachable(target))
+			return ShortestPathResult.unreachable(s, t, 0);
+		int len = 0;
+		for (int v = target; v != -1; v = prev[v])
+			len++;
+		String[] path = new String[len];
+		float[] d = new float[len];
+		for (int v = target, i = len - 1; v != -1; v = prev[v], i--) {
+			path[i] = graph.name(v);
+			d[i] = dist[v];
+		}
+		return new ShortestPathResult(s, t, path, d, 0);
+	}
+}
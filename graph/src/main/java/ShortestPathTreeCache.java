@@ -0,0 +1,197 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Size-bounded LRU cache of single-source shortest path trees, keyed by
+// source name. Every entry records the topology version it is known to be
+// valid at, and is only served while that matches the graph's version.
+// Rather than dropping every tree on each change, the graph reports what
+// changed and only the trees the change can affect are invalidated:
+//  - edges tail -> head: if tail -> head is head's tree edge (it may have
+//    got worse) or tail -> head now gives head a shorter distance;
+//  - vertex v down or up: if v is reached by the tree, or some in edge of v
+//    now gives it a shorter distance.
+// The other trees are re-stamped with the new version. A new vertex renumbers
+// the snapshot ids, so it clears the cache.
+final class ShortestPathTreeCache
+{
+	// A cached tree and the version it is known to be valid at
+	private static final class Entry
+	{
+		final ShortestPathTree tree;
+		long version;
+
+		Entry(ShortestPathTree tree, long version) {
+			this.tree = tree;
+			this.version = version;
+		}
+	}
+
+	private final int capacity;
+	private final LinkedHashMap<String, Entry> entries;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	public ShortestPathTreeCache(int capacity) {
+		this.capacity = capacity;
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+			{
+				if (size() > ShortestPathTreeCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Tree of source valid at version, or null on a miss. Readers of an
+	 * older snapshot than the latest miss without dropping the newer tree.
+	 */
+	public synchronized ShortestPathTree get(String source, long version)
+	{
+		Entry e = entries.get(source);
+		if (e != null && e.version == version) {
+			hits++;
+			return e.tree;
+		}
+		if (e != null && e.version < version) {
+			entries.remove(source);
+			invalidations++;
+		}
+		misses++;
+		return null;
+	}
+
+	/** Caches tree unless a tree of a later version is already held. */
+	public synchronized void put(String source, ShortestPathTree tree, long version)
+	{
+		Entry e = entries.get(source);
+		if (e == null || e.version <= version)
+			entries.put(source, new Entry(tree, version));
+	}
+
+	/** The edges tail -> head changed; the graph is now at version. */
+	public synchronized void edgeChanged(Vertex tail, Vertex head, long version)
+	{
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			Entry e = it.next();
+			if (affectedByEdge(e.tree, tail, head)) {
+				it.remove();
+				invalidations++;
+			} else {
+				e.version = version;
+			}
+		}
+	}
+
+	/** Vertex v went down or came up; the graph is now at version. */
+	public synchronized void vertexChanged(Vertex v, long version)
+	{
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			Entry e = it.next();
+			if (affectedByVertex(e.tree, v)) {
+				it.remove();
+				invalidations++;
+			} else {
+				e.version = version;
+			}
+		}
+	}
+
+	/** Drops every tree, after changes too many to check one by one. */
+	public synchronized void clear()
+	{
+		invalidations += entries.size();
+		entries.clear();
+	}
+
+	private static boolean affectedByEdge(ShortestPathTree tree, Vertex tail, Vertex head)
+	{
+		CsrGraph g = tree.getGraph();
+		if (g.vertexCount() != Graph.vertexList.size())
+			return true;
+		int t = g.indexOf(tail.name);
+		int h = g.indexOf(head.name);
+		if (tree.predecessor(h) == t)
+			return true;
+		return tree.isReachable(t) && tree.distance(t) + weight(tail, head) < tree.distance(h);
+	}
+
+	private static boolean affectedByVertex(ShortestPathTree tree, Vertex v)
+	{
+		CsrGraph g = tree.getGraph();
+		int x = g.indexOf(v.name);
+		if (tree.isReachable(x) || x == tree.getSource())
+			return true;
+		Adjacency in = v.radj;
+		for (int e = 0; e < in.slots(); e++) {
+			if (in.end(e) < 0)
+				continue;
+			Vertex tail = Graph.vertexList.get(in.end(e));
+			int u = g.indexOf(tail.name);
+			if (tree.isReachable(u)
+					&& tree.distance(u) + weight(tail, v) < tree.distance(x))
+				return true;
+		}
+		return false;
+	}
+
+	// Current weight of the lightest usable edge tail -> head
+	private static float weight(Vertex tail, Vertex head)
+	{
+		float best = Graph.INFINITY;
+		if (head.isDown())
+			return best;
+		Adjacency out = tail.adj;
+		for (int e = out.first(head.id); e >= 0; e = out.next(e)) {
+			if (!out.isDown(e) && out.weight(e) < best)
+				best = out.weight(e);
+		}
+		return best;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	public synchronized long getInvalidations()
+	{
+		return invalidations;
+	}
+
+	public synchronized void resetCounters()
+	{
+		hits = misses = evictions = invalidations = 0;
+	}
+}
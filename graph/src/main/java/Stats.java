@@ -0,0 +1,258 @@
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide counters of what queries cost, printed by the stats command.
+// The query searches count in their per-thread scratch and heap, and add
+// their totals here once per search, so the hot loops only touch locals and
+// fields they own. Searches done to prepare for queries (hierarchy witness
+// searches, landmark distances, delta-stepping fallbacks) are left out. Commands get a latency histogram per command type and a
+// count of the bytes they allocate, taken by CommandProcessor around every
+// command. Hot tree repairs get a histogram of the vertices each update
+// touched.
+// Everything is behind ENABLED, a static final the JIT folds, so running
+// with -Dgraph.stats=false removes the counting from the compiled code.
+// ******************PUBLIC OPERATIONS*******************************************************************
+// static void search( DaryHeap h, long scanned )---->adds the counts of one finished search
+// static void traversal( long vertices, long edges )---->adds the counts of one DFS or BFS
+// static void hotUpdate( long touched )---->records the vertices one hot tree update touched
+// static void command( String c, long ns, long bytes )---->records one command
+// static void print( PrintWriter o )---->prints every counter and histogram
+// static void reset()---->clears them
+final class Stats
+{
+	static final boolean ENABLED = !"false".equals(System.getProperty("graph.stats"));
+
+	// Commands with a histogram, in the order they are printed
+	static final String[] COMMANDS = { "path", "reachable", "matrix", "print", "addedge",
+			"deleteedge", "edgedown", "edgeup", "vertexdown", "vertexup", "batch", "hot",
+			"cache", "stats", "save", "load", "checkpoint" };
+
+	private static final LongAdder searches = new LongAdder();
+	private static final LongAdder settled = new LongAdder();
+	private static final LongAdder scanned = new LongAdder();
+	private static final LongAdder pushes = new LongAdder();
+	private static final LongAdder decreases = new LongAdder();
+	private static final LongAccumulator maxHeap = new LongAccumulator(Math::max, 0);
+	private static final LongAdder traversals = new LongAdder();
+	private static final LongAdder visited = new LongAdder();
+	private static final LongAdder traversed = new LongAdder();
+	private static final Histogram hotUpdates = new Histogram();
+	private static final Histogram[] latency = new Histogram[COMMANDS.length];
+	private static final LongAdder[] allocated = new LongAdder[COMMANDS.length];
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final boolean countsBytes = countsBytes();
+
+	static {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			latency[i] = new Histogram();
+			allocated[i] = new LongAdder();
+		}
+	}
+
+	private Stats() {
+	}
+
+	// Log-linear histogram of non-negative values in the manner of
+	// HdrHistogram: values below 16 get a bucket each, above that every
+	// power of two is split into 16 buckets, so a value is known to within
+	// 1/16 of itself whatever its size
+	static final class Histogram
+	{
+		private static final int SUB = 16;
+		private final AtomicLongArray counts = new AtomicLongArray(SUB * 60);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		void record(long value)
+		{
+			if (value < 0)
+				value = 0;
+			counts.incrementAndGet(bucket(value));
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		long count()
+		{
+			return count.sum();
+		}
+
+		double mean()
+		{
+			long c = count.sum();
+			return c == 0 ? 0 : (double) sum.sum() / c;
+		}
+
+		long max()
+		{
+			return max.get();
+		}
+
+		// Highest value of the bucket the p-th fraction of the values is in,
+		// but never above the largest value recorded
+		long percentile(double p)
+		{
+			long total = 0;
+			for (int i = 0; i < counts.length(); i++)
+				total += counts.get(i);
+			if (total == 0)
+				return 0;
+			long rank = Math.max(1, (long) Math.ceil(p * total));
+			long seen = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				seen += counts.get(i);
+				if (seen >= rank)
+					return Math.min(highest(i), max.get());
+			}
+			return max.get();
+		}
+
+		void reset()
+		{
+			for (int i = 0; i < counts.length(); i++)
+				counts.set(i, 0);
+			count.reset();
+			sum.reset();
+			max.reset();
+		}
+
+		private static int bucket(long value)
+		{
+			if (value < SUB)
+				return (int) value;
+			int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+			return SUB + shift * SUB + (int) ((value >>> shift) & (SUB - 1));
+		}
+
+		private static long highest(int bucket)
+		{
+			if (bucket < SUB)
+				return bucket;
+			int shift = (bucket - SUB) / SUB;
+			long sub = (bucket - SUB) % SUB;
+			return ((SUB + sub + 1) << shift) - 1;
+		}
+	}
+
+	/**
+	 * Adds the counts of one finished search, kept in its heap, and the no.
+	 * of edges it scanned.
+	 */
+	static void search(DaryHeap heap, long edges)
+	{
+		searches.increment();
+		settled.add(heap.pops);
+		scanned.add(edges);
+		pushes.add(heap.pushes);
+		decreases.add(heap.decreases);
+		maxHeap.accumulate(heap.maxSize);
+	}
+
+	/** Adds the counts of one DFS or BFS. */
+	static void traversal(long vertices, long edges)
+	{
+		traversals.increment();
+		visited.add(vertices);
+		traversed.add(edges);
+	}
+
+	/** Records the no. of tree vertices one update of the hot trees touched. */
+	static void hotUpdate(long touched)
+	{
+		hotUpdates.record(touched);
+	}
+
+	/** Index of command in COMMANDS, or -1 for one that is not recorded. */
+	static int commandIndex(String command)
+	{
+		for (int i = 0; i < COMMANDS.length; i++) {
+			if (COMMANDS[i].equals(command))
+				return i;
+		}
+		return -1;
+	}
+
+	/** Records one run of command no. i: its latency and bytes allocated. */
+	static void command(int i, long nanos, long bytes)
+	{
+		latency[i].record(nanos);
+		if (bytes > 0)
+			allocated[i].add(bytes);
+	}
+
+	/**
+	 * Bytes allocated so far by the current thread, or -1 where the JVM does
+	 * not count them.
+	 */
+	static long allocatedBytes()
+	{
+		if (!countsBytes)
+			return -1;
+		return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+	}
+
+	private static boolean countsBytes()
+	{
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return false;
+		com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+		return t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled();
+	}
+
+	public static void print(PrintWriter out)
+	{
+		if (!ENABLED) {
+			out.println("Statistics are off; run without -Dgraph.stats=false to collect them");
+			return;
+		}
+		long s = searches.sum();
+		out.println("Searches " + s + ": " + settled.sum() + " vertices settled, "
+				+ scanned.sum() + " edges scanned, " + (pushes.sum() + decreases.sum())
+				+ " edges relaxed, " + pushes.sum() + " heap pushes, " + settled.sum()
+				+ " heap pops, " + decreases.sum() + " decrease-keys, max heap "
+				+ maxHeap.get());
+		out.println("Traversals " + traversals.sum() + ": " + visited.sum()
+				+ " vertices visited, " + traversed.sum() + " edges scanned");
+		if (hotUpdates.count() > 0)
+			out.printf("Hot tree updates %d: vertices touched mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+					hotUpdates.count(), hotUpdates.mean(), hotUpdates.percentile(0.50),
+					hotUpdates.percentile(0.90), hotUpdates.percentile(0.99), hotUpdates.max());
+		out.printf("%-11s %9s %10s %10s %10s %10s %10s %10s %12s%n", "command", "count",
+				"mean us", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "bytes/cmd");
+		for (int i = 0; i < COMMANDS.length; i++) {
+			Histogram h = latency[i];
+			long c = h.count();
+			if (c == 0)
+				continue;
+			out.printf("%-11s %9d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %12s%n",
+					COMMANDS[i], c, h.mean() / 1e3, h.percentile(0.50) / 1e3,
+					h.percentile(0.90) / 1e3, h.percentile(0.99) / 1e3,
+					h.percentile(0.999) / 1e3, h.max() / 1e3,
+					countsBytes ? String.valueOf(allocated[i].sum() / c) : "-");
+		}
+	}
+
+	public static void reset()
+	{
+		searches.reset();
+		settled.reset();
+		scanned.reset();
+		pushes.reset();
+		decreases.reset();
+		maxHeap.reset();
+		traversals.reset();
+		visited.reset();
+		traversed.reset();
+		hotUpdates.reset();
+		for (int i = 0; i < COMMANDS.length; i++) {
+			latency[i].reset();
+			allocated[i].reset();
+		}
+	}
+}
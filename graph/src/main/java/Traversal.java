@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+// Iterative depth-first and breadth-first traversal over the up vertices and
+// up edges of a CsrGraph, forwards or against the edges.
+// The DFS keeps its own stack of (vertex, next edge) pairs, so it handles
+// paths millions of vertices deep without recursing. Visit marks are int
+// epoch stamps: a vertex is visited when its stamp equals the current epoch,
+// so starting a new traversal is one increment instead of recoloring every
+// vertex. Adjacency in the CSR is already sorted, so no sorting happens here.
+final class Traversal
+{
+	// Callbacks of a traversal; leave is only called by dfs, in post-order
+	interface Visitor
+	{
+		void enter(int v, int parent);
+
+		default void leave(int v)
+		{
+		}
+	}
+
+	private final CsrGraph graph;
+	private final int[] mark;     // = epoch when visited in the current traversal
+	private int epoch = 0;
+	private final int[] stack;    // dfs vertices, or the bfs queue
+	private final int[] cursor;   // dfs: next edge / reverse slot of stack[i]
+
+	public Traversal(CsrGraph g) {
+		graph = g;
+		int n = g.vertexCount();
+		mark = new int[n];
+		stack = new int[n];
+		cursor = new int[n];
+	}
+
+	/** Forgets every visit mark in O(1). */
+	public void newEpoch()
+	{
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			epoch = 1;
+		}
+	}
+
+	public boolean visited(int v)
+	{
+		return mark[v] == epoch;
+	}
+
+	/**
+	 * Depth-first traversal from root over vertices not yet visited in this
+	 * epoch. Nothing happens if root is down or already visited.
+	 */
+	public void dfs(int root, boolean reverse, Visitor visitor)
+	{
+		CsrGraph g = graph;
+		if (g.isVertexDown(root) || mark[root] == epoch)
+			return;
+		int top = 0;
+		long visits = 1;   // counted for Stats
+		long edges = Stats.ENABLED ? degree(root, reverse) : 0;
+		mark[root] = epoch;
+		visitor.enter(root, -1);
+		stack[top] = root;
+		cursor[top++] = reverse ? g.reverseStart(root) : g.edgeStart(root);
+
+		while (top > 0) {
+			int v = stack[top - 1];
+			int end = reverse ? g.reverseEnd(v) : g.edgeEnd(v);
+			int i = cursor[top - 1];
+			int w = -1;
+			for (; i < end; i++) {
+				int e = reverse ? g.reverseEdge(i) : i;
+				int u = reverse ? g.reverseSource(i) : g.target(i);
+				if (mark[u] != epoch && !g.isEdgeDown(e) && !g.isVertexDown(u)) {
+					w = u;
+					i++;
+					break;
+				}
+			}
+			cursor[top - 1] = i;
+			if (w < 0) {
+				// ***every edge of v is done
+				top--;
+				visitor.leave(v);
+				continue;
+			}
+			mark[w] = epoch;
+			visitor.enter(w, v);
+			stack[top] = w;
+			cursor[top++] = reverse ? g.reverseStart(w) : g.edgeStart(w);
+			if (Stats.ENABLED) {
+				visits++;
+				edges += degree(w, reverse);
+			}
+		}
+		if (Stats.ENABLED)
+			Stats.traversal(visits, edges);
+	}
+
+	/**
+	 * Breadth-first traversal from root over vertices not yet visited in
+	 * this epoch.
+	 */
+	public void bfs(int root, boolean reverse, Visitor visitor)
+	{
+		CsrGraph g = graph;
+		if (g.isVertexDown(root) || mark[root] == epoch)
+			return;
+		int head = 0;
+		int tail = 0;
+		long edges = 0;    // counted for Stats
+		mark[root] = epoch;
+		visitor.enter(root, -1);
+		stack[tail++] = root;
+		while (head < tail) {
+			int v = stack[head++];
+			int end = reverse ? g.reverseEnd(v) : g.edgeEnd(v);
+			int start = reverse ? g.reverseStart(v) : g.edgeStart(v);
+			if (Stats.ENABLED)
+				edges += end - start;
+			for (int i = start; i < end; i++) {
+				int e = reverse ? g.reverseEdge(i) : i;
+				int w = reverse ? g.reverseSource(i) : g.target(i);
+				if (mark[w] != epoch && !g.isEdgeDown(e) && !g.isVertexDown(w)) {
+					mark[w] = epoch;
+					visitor.enter(w, v);
+					stack[tail++] = w;
+				}
+			}
+		}
+		if (Stats.ENABLED)
+			Stats.traversal(tail, edges);
+	}
+
+	private int degree(int v, boolean reverse)
+	{
+		CsrGraph g = graph;
+		return reverse ? g.reverseEnd(v) - g.reverseStart(v) : g.edgeEnd(v) - g.edgeStart(v);
+	}
+}
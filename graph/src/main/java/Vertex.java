@@ -0,0 +1,89 @@
+// Represents a vertex in the graph.
+class Vertex implements Comparable<Vertex>
+{
+
+	public String name;            // Vertex name
+	public int id;                 // Dense vertex id, index into Graph.vertexList
+	public Adjacency adj;          // Edges out of this vertex, by head id
+	public Adjacency radj;         // Edges coming into this vertex, by tail id
+	public Vertex prev;            // Previous vertex on shortest path
+	public float dist;             // Distance of path
+
+	public Vertex(String nm) {
+		name = nm;
+		adj = new Adjacency();
+		radj = new Adjacency();
+
+		reset();
+
+	}
+
+	public void reset()
+	{
+		dist = Graph.INFINITY;
+		prev = null;
+	}
+
+	public float getDist()
+	{
+		return dist;
+	}
+
+	public void setDist(float dist)
+	{
+		this.dist = dist;
+	}
+
+	public int compareTo(Vertex other)
+	{
+		return dist < other.dist ? 1 : -1;
+	}
+
+	// Vertex State (down/up), a bit of Graph.vertexDown
+	public boolean isDown()
+	{
+		return CsrGraph.get(Graph.vertexDown, id);
+	}
+
+	public boolean getVstate()
+	{
+		return isDown();
+	}
+
+	public void setVstate(boolean vstate)
+	{
+		if (vstate)
+			CsrGraph.set(Graph.vertexDown, id);
+		else
+			CsrGraph.clear(Graph.vertexDown, id);
+	}
+
+	public Vertex getPrev()
+	{
+		return prev;
+	}
+
+	public void setPrev(Vertex prev)
+	{
+		this.prev = prev;
+	}
+
+	// Vertices are equal when they have the same dense id, i.e. the same name
+	@Override
+	public int hashCode()
+	{
+		return id;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		return id == ((Vertex) obj).id;
+	}
+}
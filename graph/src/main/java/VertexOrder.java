@@ -0,0 +1,334 @@
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+// Relabels the vertices of a CsrGraph so that vertices close in the graph
+// get close ids. A search reads dist, prev and the heap position of every
+// neighbour it relaxes and the edges of every vertex it settles; with ids in
+// name order those are scattered over the arrays and nearly every one is a
+// cache miss, with nearby ids they share cache lines and pages.
+//   bfs      breadth-first order, components started in name order
+//   rcm      reverse Cuthill-McKee: breadth-first from a pseudo-peripheral
+//            vertex of each component, neighbours by increasing degree,
+//            the whole order reversed; keeps the id distance across every
+//            edge (the bandwidth) small
+//   hilbert  vertices sorted along a Hilbert curve through their
+//            coordinates; those without coordinates go last, in name order
+// Edges count in both directions, so the order follows a road whichever way
+// it is stored. Names and output do not change: the relabeled snapshot keeps
+// its names under the new ids, lists the ids in name order (byName), and
+// keeps the out edges of every vertex in the order they had.
+// ******************PUBLIC OPERATIONS*******************************************************************
+// static int[] order( CsrGraph g, String method, Map c )---->new id of every vertex
+// static CsrGraph relabel( CsrGraph g, int[] newId, OffHeapStorage s )---->copy of g under the new ids
+// static CsrGraph apply( CsrGraph g, String method, Map c, OffHeapStorage s )---->both of the above
+final class VertexOrder
+{
+	static final String[] METHODS = { "bfs", "rcm", "hilbert" };
+
+	private static final int CURVE_BITS = 15;   // Hilbert grid of 2^15 x 2^15 cells
+
+	private VertexOrder() {
+	}
+
+	/**
+	 * Method to use when none is given: the Hilbert curve when there are
+	 * coordinates, Cuthill-McKee otherwise.
+	 */
+	public static String defaultMethod(Map<String, double[]> coordinates)
+	{
+		return coordinates != null ? "hilbert" : "rcm";
+	}
+
+	/**
+	 * Relabels g by the given method into storage, or onto the heap when
+	 * storage is null.
+	 */
+	public static CsrGraph apply(CsrGraph g, String method, Map<String, double[]> coordinates,
+			OffHeapStorage storage)
+	{
+		return relabel(g, order(g, method, coordinates), storage);
+	}
+
+	/**
+	 * New id of every vertex of g under the given method. Coordinates are
+	 * only needed by hilbert.
+	 */
+	public static int[] order(CsrGraph g, String method, Map<String, double[]> coordinates)
+	{
+		switch (method) {
+		case "bfs":
+			return bfs(g);
+		case "rcm":
+			return rcm(g);
+		case "hilbert":
+			if (coordinates == null)
+				throw new GraphException("Ordering hilbert needs a coordinates file");
+			return hilbert(g, coordinates);
+		default:
+			throw new GraphException("Unknown vertex ordering " + method
+					+ "; use " + String.join(", ", METHODS));
+		}
+	}
+
+	// Undirected degree: out edges plus in edges
+	private static int degree(CsrGraph g, int v)
+	{
+		return g.edgeEnd(v) - g.edgeStart(v) + g.reverseEnd(v) - g.reverseStart(v);
+	}
+
+	private static int[] bfs(CsrGraph g)
+	{
+		int n = g.vertexCount();
+		int[] newId = new int[n];
+		Arrays.fill(newId, -1);
+		// ***the queue holds every vertex once, in the order of its new id
+		int[] queue = new int[n];
+		int next = 0;
+		for (int i = 0; i < n; i++) {
+			int root = g.byName(i);
+			if (newId[root] >= 0)
+				continue;
+			newId[root] = next;
+			queue[next++] = root;
+			for (int q = next - 1; q < next; q++) {
+				int v = queue[q];
+				for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+					int w = g.target(e);
+					if (newId[w] < 0) {
+						newId[w] = next;
+						queue[next++] = w;
+					}
+				}
+				for (int r = g.reverseStart(v); r < g.reverseEnd(v); r++) {
+					int w = g.reverseSource(r);
+					if (newId[w] < 0) {
+						newId[w] = next;
+						queue[next++] = w;
+					}
+				}
+			}
+		}
+		return newId;
+	}
+
+	private static int[] rcm(CsrGraph g)
+	{
+		int n = g.vertexCount();
+		int[] degree = new int[n];
+		int maxDegree = 0;
+		for (int v = 0; v < n; v++) {
+			degree[v] = degree(g, v);
+			maxDegree = Math.max(maxDegree, degree[v]);
+		}
+		// ***vertices by increasing degree, ties in name order, so every
+		// ***component is first met at one of its lowest degree vertices
+		int[] count = new int[maxDegree + 2];
+		for (int v = 0; v < n; v++)
+			count[degree[v] + 1]++;
+		for (int d = 0; d <= maxDegree; d++)
+			count[d + 1] += count[d];
+		int[] byDegree = new int[n];
+		for (int i = 0; i < n; i++) {
+			int v = g.byName(i);
+			byDegree[count[degree[v]]++] = v;
+		}
+
+		int[] order = new int[n];     // Cuthill-McKee order, filled as a queue
+		int[] level = new int[n];     // scratch of the pseudo-peripheral search
+		int[] queue = new int[n];
+		Arrays.fill(level, -1);
+		boolean[] placed = new boolean[n];
+		long[] keys = new long[16];
+		int size = 0;
+		for (int start : byDegree) {
+			if (placed[start])
+				continue;
+			int root = peripheral(g, start, degree, level, queue);
+			placed[root] = true;
+			order[size++] = root;
+			for (int q = size - 1; q < size; q++) {
+				int v = order[q];
+				int k = 0;
+				int d = degree[v];
+				if (keys.length < d)
+					keys = new long[Math.max(d, 2 * keys.length)];
+				for (int e = g.edgeStart(v); e < g.edgeEnd(v); e++) {
+					int w = g.target(e);
+					if (!placed[w]) {
+						placed[w] = true;
+						keys[k++] = (long) degree[w] << 32 | w;
+					}
+				}
+				for (int r = g.reverseStart(v); r < g.reverseEnd(v); r++) {
+					int w = g.reverseSource(r);
+					if (!placed[w]) {
+						placed[w] = true;
+						keys[k++] = (long) degree[w] << 32 | w;
+					}
+				}
+				Arrays.sort(keys, 0, k);
+				for (int i = 0; i < k; i++)
+					order[size++] = (int) keys[i];
+			}
+		}
+		int[] newId = new int[n];
+		for (int i = 0; i < n; i++)
+			newId[order[i]] = n - 1 - i;
+		return newId;
+	}
+
+	// Pseudo-peripheral vertex of start's component by the George-Liu
+	// heuristic: search breadth-first from the candidate and move on to a
+	// lowest degree vertex of the last level for as long as that makes the
+	// search deeper. level[] is -1 everywhere and left that way; queue is
+	// scratch.
+	private static int peripheral(CsrGraph g, int start, int[] degree, int[] level, int[] queue)
+	{
+		int v = start;
+		int eccentricity = -1;
+		for (int round = 0; round < 8; round++) {
+			int size = 0;
+			queue[size++] = v;
+			level[v] = 0;
+			for (int q = 0; q < size; q++) {
+				int x = queue[q];
+				for (int e = g.edgeStart(x); e < g.edgeEnd(x); e++) {
+					int w = g.target(e);
+					if (level[w] < 0) {
+						level[w] = level[x] + 1;
+						queue[size++] = w;
+					}
+				}
+				for (int r = g.reverseStart(x); r < g.reverseEnd(x); r++) {
+					int w = g.reverseSource(r);
+					if (level[w] < 0) {
+						level[w] = level[x] + 1;
+						queue[size++] = w;
+					}
+				}
+			}
+			int last = level[queue[size - 1]];
+			int best = -1;
+			for (int q = size - 1; q >= 0 && level[queue[q]] == last; q--) {
+				if (best < 0 || degree[queue[q]] < degree[best])
+					best = queue[q];
+			}
+			for (int q = 0; q < size; q++)
+				level[queue[q]] = -1;
+			if (last <= eccentricity)
+				break;
+			eccentricity = last;
+			v = best;
+		}
+		return v;
+	}
+
+	private static int[] hilbert(CsrGraph g, Map<String, double[]> coordinates)
+	{
+		int n = g.vertexCount();
+		double[][] at = new double[n][];
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int v = 0; v < n; v++) {
+			double[] c = coordinates.get(g.name(v));
+			if (c == null)
+				continue;
+			at[v] = c;
+			minX = Math.min(minX, c[0]);
+			maxX = Math.max(maxX, c[0]);
+			minY = Math.min(minY, c[1]);
+			maxY = Math.max(maxY, c[1]);
+		}
+		double cells = (1 << CURVE_BITS) - 1;
+		double sx = maxX > minX ? cells / (maxX - minX) : 0;
+		double sy = maxY > minY ? cells / (maxY - minY) : 0;
+
+		// ***key: curve position above, name rank below, so ties keep name
+		// ***order; vertices without coordinates sort after every position
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			int v = g.byName(i);
+			long d = 1L << 2 * CURVE_BITS;
+			if (at[v] != null)
+				d = curve((int) ((at[v][0] - minX) * sx), (int) ((at[v][1] - minY) * sy));
+			keys[i] = d << 31 | i;
+		}
+		Arrays.sort(keys);
+		int[] newId = new int[n];
+		for (int k = 0; k < n; k++)
+			newId[g.byName((int) (keys[k] & Integer.MAX_VALUE))] = k;
+		return newId;
+	}
+
+	// Position of cell (x, y) along the Hilbert curve through the grid
+	private static long curve(int x, int y)
+	{
+		int side = 1 << CURVE_BITS;
+		long d = 0;
+		for (int s = side >>> 1; s > 0; s >>>= 1) {
+			int rx = (x & s) != 0 ? 1 : 0;
+			int ry = (y & s) != 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			// ***rotate the quadrant so the curve inside it runs the same way
+			if (ry == 0) {
+				if (rx == 1) {
+					x = side - 1 - x;
+					y = side - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Copy of g in which vertex v has id newId[v], down states included,
+	 * built in storage or on the heap when storage is null. The out edges of
+	 * every vertex keep their order, so printing is unchanged.
+	 */
+	public static CsrGraph relabel(CsrGraph g, int[] newId, OffHeapStorage storage)
+	{
+		int n = g.vertexCount();
+		int m = g.edgeCount();
+		int[] old = new int[n];
+		for (int v = 0; v < n; v++)
+			old[newId[v]] = v;
+
+		IntBuffer offsets = storage != null ? storage.ints(n + 1) : IntBuffer.allocate(n + 1);
+		IntBuffer targets = storage != null ? storage.ints(m) : IntBuffer.allocate(m);
+		FloatBuffer weights = storage != null ? storage.floats(m) : FloatBuffer.allocate(m);
+		LongBuffer vertexDown = storage != null ? storage.longs(CsrGraph.words(n))
+				: LongBuffer.allocate(CsrGraph.words(n));
+		LongBuffer edgeDown = storage != null ? storage.longs(CsrGraph.words(m))
+				: LongBuffer.allocate(CsrGraph.words(m));
+		int f = 0;
+		for (int v = 0; v < n; v++) {
+			int u = old[v];
+			offsets.put(v, f);
+			if (g.isVertexDown(u))
+				vertexDown.put(v >>> 6, vertexDown.get(v >>> 6) | 1L << v);
+			for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++, f++) {
+				targets.put(f, newId[g.target(e)]);
+				weights.put(f, g.weight(e));
+				if (g.isEdgeDown(e))
+					edgeDown.put(f >>> 6, edgeDown.get(f >>> 6) | 1L << f);
+			}
+		}
+		offsets.put(n, m);
+
+		int[] byName = new int[n];
+		for (int i = 0; i < n; i++)
+			byName[i] = newId[g.byName(i)];
+		NameDictionary names = g.names().reordered(old);
+		if (storage != null)
+			return storage.graph(names, offsets, targets, weights, vertexDown, edgeDown,
+					storage.copyOf(byName));
+		return new CsrGraph(names, offsets.array(), targets.array(), weights.array(),
+				vertexDown.array(), edgeDown.array(), byName);
+	}
+}
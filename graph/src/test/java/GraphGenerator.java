@@ -0,0 +1,168 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+// Synthetic graphs for benchmarking, written as edge files in the format
+// Graph.main reads: one "tail head weight" line per road, which the loader
+// turns into an edge both ways. Vertices are named v0, v1, ... and every
+// kind is generated from a seed, so the same arguments give the same file.
+//   grid      side x side lattice, weights uniform in [1, 10)
+//   road      lattice with a tenth of the streets missing, jittered vertex
+//             positions, weights proportional to length, and a sparse
+//             layer of long, fast highway edges
+//   powerlaw  preferential attachment (Barabasi-Albert), 3 roads per new
+//             vertex, so a few hubs get very high degree
+//   dense     uniform random roads, DENSE_DEGREE edges per vertex on average
+// ******************PUBLIC OPERATIONS*******************************************************************
+// static long write( String kind, int n, long seed, String file )---->writes a graph of about n vertices, returns its lines
+final class GraphGenerator
+{
+	static final String[] KINDS = { "grid", "road", "powerlaw", "dense" };
+	static final int DENSE_DEGREE = 32;
+
+	private GraphGenerator() {
+	}
+
+	/**
+	 * Writes a graph of the given kind with about n vertices to file.
+	 * Returns the no. of lines written.
+	 */
+	public static long write(String kind, int n, long seed, String file) throws IOException
+	{
+		Random r = new Random(seed);
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16))) {
+			switch (kind) {
+			case "grid":
+				return grid(n, r, out);
+			case "road":
+				return road(n, r, out);
+			case "powerlaw":
+				return powerLaw(n, r, out);
+			case "dense":
+				return dense(n, r, out);
+			default:
+				throw new GraphException("Unknown graph kind " + kind);
+			}
+		}
+	}
+
+	private static void line(PrintWriter out, int a, int b, float w)
+	{
+		out.print('v');
+		out.print(a);
+		out.print(" v");
+		out.print(b);
+		out.print(' ');
+		out.println(w);
+	}
+
+	private static long grid(int n, Random r, PrintWriter out)
+	{
+		int side = (int) Math.ceil(Math.sqrt(n));
+		long lines = 0;
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				int v = y * side + x;
+				if (x + 1 < side) {
+					line(out, v, v + 1, 1 + 9 * r.nextFloat());
+					lines++;
+				}
+				if (y + 1 < side) {
+					line(out, v, v + side, 1 + 9 * r.nextFloat());
+					lines++;
+				}
+			}
+		}
+		return lines;
+	}
+
+	private static long road(int n, Random r, PrintWriter out)
+	{
+		int side = (int) Math.ceil(Math.sqrt(n));
+		float[] px = new float[side * side];
+		float[] py = new float[side * side];
+		for (int v = 0; v < px.length; v++) {
+			px[v] = v % side + 0.4f * (r.nextFloat() - 0.5f);
+			py[v] = v / side + 0.4f * (r.nextFloat() - 0.5f);
+		}
+		long lines = 0;
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				int v = y * side + x;
+				// ***a tenth of the streets is missing, the rest is driven at
+				// ***a speed varying by a factor of two
+				if (x + 1 < side && r.nextInt(10) != 0) {
+					line(out, v, v + 1, length(px, py, v, v + 1) * (1 + r.nextFloat()));
+					lines++;
+				}
+				if (y + 1 < side && r.nextInt(10) != 0) {
+					line(out, v, v + side, length(px, py, v, v + side) * (1 + r.nextFloat()));
+					lines++;
+				}
+			}
+		}
+		// ***highways: every 16th row and column, at a quarter of the cost
+		for (int y = 0; y < side; y += 16) {
+			for (int x = 0; x + 16 < side; x += 16) {
+				int v = y * side + x;
+				line(out, v, v + 16, 0.25f * length(px, py, v, v + 16));
+				lines++;
+			}
+		}
+		for (int x = 0; x < side; x += 16) {
+			for (int y = 0; y + 16 < side; y += 16) {
+				int v = y * side + x;
+				line(out, v, v + 16 * side, 0.25f * length(px, py, v, v + 16 * side));
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	private static float length(float[] px, float[] py, int a, int b)
+	{
+		float dx = px[a] - px[b];
+		float dy = py[a] - py[b];
+		return (float) Math.sqrt(dx * dx + dy * dy);
+	}
+
+	private static long powerLaw(int n, Random r, PrintWriter out)
+	{
+		final int k = 3;
+		// ***every road end goes into ends, so picking a random entry picks a
+		// ***vertex with probability proportional to its degree
+		int[] ends = new int[2 * k * Math.max(n, k + 1)];
+		int size = 0;
+		long lines = 0;
+		for (int v = 1; v <= k; v++) {
+			line(out, 0, v, 1 + 9 * r.nextFloat());
+			ends[size++] = 0;
+			ends[size++] = v;
+			lines++;
+		}
+		for (int v = k + 1; v < n; v++) {
+			for (int i = 0; i < k; i++) {
+				int u = ends[r.nextInt(size)];
+				line(out, v, u, 1 + 9 * r.nextFloat());
+				ends[size++] = v;
+				ends[size++] = u;
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	private static long dense(int n, Random r, PrintWriter out)
+	{
+		long lines = 0;
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < DENSE_DEGREE / 2; i++) {
+				line(out, v, r.nextInt(n), 1 + 9 * r.nextFloat());
+				lines++;
+			}
+		}
+		return lines;
+	}
+}
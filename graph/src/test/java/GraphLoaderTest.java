@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphLoaderTest
+{
+	// Every line terminator Scanner.nextLine knows
+	private static final String[] TERMINATORS = { "\n", "\r\n", "\r", "\u0085", "\u2028", "\u2029" };
+
+	@TempDir
+	Path dir;
+
+	private static String print(CsrGraph g)
+	{
+		StringWriter s = new StringWriter();
+		PrintWriter out = new PrintWriter(s);
+		g.printGraph(out);
+		out.flush();
+		return s.toString();
+	}
+
+	// The lines of a generated graph joined by terminator, large enough to
+	// be cut into several chunks
+	private String rewrite(String file, String terminator) throws IOException
+	{
+		String text = new String(Files.readAllBytes(Path.of(file)), StandardCharsets.UTF_8);
+		Path out = dir.resolve("terminator-" + (int) terminator.charAt(terminator.length() - 1) + ".txt");
+		Files.write(out, String.join(terminator, text.split("\n")).getBytes(StandardCharsets.UTF_8));
+		return out.toString();
+	}
+
+	@Test
+	void everyLineTerminatorGivesTheSameGraph() throws IOException
+	{
+		String file = dir.resolve("road.txt").toString();
+		GraphGenerator.write("road", 100000, 1, file);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		String expected = print(GraphLoader.load(file, pool));
+		for (String terminator : TERMINATORS)
+			assertEquals(expected, print(GraphLoader.load(rewrite(file, terminator), pool)),
+					"terminator " + (int) terminator.charAt(0));
+	}
+
+	@Test
+	void mixedTerminatorsEndOneLineEach() throws IOException
+	{
+		Path file = dir.resolve("mixed.txt");
+		Files.write(file, "a b 1\rb c 2\r\nc d 3\u0085d e 4\u2028e f 5\u2029f g 6\n"
+				.getBytes(StandardCharsets.UTF_8));
+		CsrGraph g = GraphLoader.load(file.toString(), ForkJoinPool.commonPool());
+		assertEquals(7, g.vertexCount());
+		assertEquals(12, g.edgeCount());
+		assertEquals(21f, g.shortestPath(g.indexOf("a"), g.indexOf("g")).getDistance());
+	}
+}
@@ -0,0 +1,179 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphServerTest
+{
+	@TempDir
+	Path dir;
+
+	private Graph load(String text) throws IOException
+	{
+		Path file = dir.resolve("g.txt");
+		Files.write(file, text.getBytes());
+		Graph g = new Graph();
+		g.load(file.toString());
+		return g;
+	}
+
+	// An Error in one change fails that change only; the writer keeps
+	// applying and publishing later ones
+	@Test
+	void writerSurvivesAFailedChange() throws IOException
+	{
+		Graph g = load("a b 1\nb c 2\n");
+		GraphServer server = new GraphServer(g);
+
+		assertThrows(GraphException.class, () -> server.change(() -> {
+			throw new AssertionError("boom");
+		}));
+		server.change(() -> g.addedge("a", "c", 1f));
+		CsrGraph csr = g.published();
+		assertEquals(1f, csr.shortestPath(csr.indexOf("a"), csr.indexOf("c")).getDistance());
+	}
+
+	// The writer is held on a first change while others queue up behind it,
+	// so they are applied as one batch; the one that fails gets its own
+	// exception back and the rest of the batch is applied and published
+	@Test
+	void failedChangeLeavesTheRestOfItsBatchApplied() throws Exception
+	{
+		Graph g = load("a b 1\n");
+		GraphServer server = new GraphServer(g);
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(6);
+		try {
+			Future<?> first = pool.submit(() -> {
+				server.change(() -> {
+					holding.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						throw new GraphException("interrupted");
+					}
+				});
+				return null;
+			});
+			holding.await();
+			List<Future<?>> changes = new ArrayList<Future<?>>();
+			for (int i = 0; i < 4; i++) {
+				final String v = "x" + i;
+				changes.add(pool.submit(() -> {
+					server.change(() -> g.addedge("a", v, 1f));
+					return null;
+				}));
+			}
+			Future<?> failing = pool.submit(() -> {
+				server.change(() -> {
+					throw new GraphException("bad change");
+				});
+				return null;
+			});
+			release.countDown();
+			first.get();
+			ExecutionException e = assertThrows(ExecutionException.class, failing::get);
+			assertEquals("bad change", e.getCause().getMessage());
+			for (Future<?> f : changes)
+				f.get();
+		} finally {
+			pool.shutdown();
+		}
+		CsrGraph csr = g.published();
+		for (int i = 0; i < 4; i++)
+			assertEquals(1f, csr.shortestPath(csr.indexOf("a"), csr.indexOf("x" + i)).getDistance());
+	}
+
+	// Distance at the end of a printed path
+	private static float distance(String printed)
+	{
+		String line = printed.trim();
+		return Float.parseFloat(line.substring(line.lastIndexOf(' ') + 1));
+	}
+
+	private static float distance(CsrGraph csr, String s, String t)
+	{
+		return csr.shortestPath(csr.indexOf(s), csr.indexOf(t)).getDistance();
+	}
+
+	// Readers run path commands on the published snapshot while the writer
+	// keeps adding ever lighter edges, so distances only shrink: each answer
+	// has to lie between Dijkstra on the snapshots published before and
+	// after it. A* makes the readers build the heuristic of each snapshot
+	// they reach, concurrently
+	@Test
+	void readersSeeWholeSnapshotsDuringWrites() throws Exception
+	{
+		String file = dir.resolve("grid.txt").toString();
+		GraphGenerator.write("grid", 400, 1, file);
+		Graph g = new Graph();
+		g.load(file);
+		g.setSearch("astar");
+		GraphServer server = new GraphServer(g);
+		final CsrGraph first = g.published();
+		final int n = first.vertexCount();
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		Thread[] readers = new Thread[4];
+		for (int i = 0; i < readers.length; i++) {
+			final long seed = i;
+			readers[i] = new Thread(() -> {
+				Random r = new Random(seed);
+				CommandProcessor p = new CommandProcessor(g, server);
+				try {
+					while (writing.get()) {
+						String s = first.name(r.nextInt(n));
+						String t = first.name(r.nextInt(n));
+						CsrGraph before = g.published();
+						StringWriter text = new StringWriter();
+						PrintWriter out = new PrintWriter(text);
+						p.execute("path " + s + " " + t, out);
+						out.flush();
+						CsrGraph after = g.published();
+						float d = distance(text.toString());
+						float upper = distance(before, s, t);
+						float lower = distance(after, s, t);
+						if (d > upper * (1 + 1e-4f) || d < lower * (1 - 1e-4f))
+							errors.add(new AssertionError(s + " -> " + t + ": " + d
+									+ " not in [" + lower + ", " + upper + "]"));
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			});
+			readers[i].start();
+		}
+		CommandProcessor writer = new CommandProcessor(g, server);
+		PrintWriter sink = new PrintWriter(new StringWriter());
+		Random r = new Random(99);
+		int changes = 300;
+		for (int i = 0; i < changes; i++) {
+			String a = first.name(r.nextInt(n));
+			String b = first.name(r.nextInt(n));
+			writer.execute("addedge " + a + " " + b + " " + 0.5f * (changes - i) / changes, sink);
+		}
+		writing.set(false);
+		for (Thread t : readers)
+			t.join();
+		assertTrue(errors.isEmpty(), errors.toString());
+	}
+}
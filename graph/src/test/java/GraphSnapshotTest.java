@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphSnapshotTest
+{
+	@TempDir
+	Path dir;
+
+	private CsrGraph graph() throws IOException
+	{
+		String file = dir.resolve("g.txt").toString();
+		GraphGenerator.write("grid", 100, 1, file);
+		return GraphLoader.load(file, ForkJoinPool.commonPool());
+	}
+
+	private static long align(long at)
+	{
+		return (at + 7) & ~7L;
+	}
+
+	@Test
+	void savedSnapshotLoadsBack() throws IOException
+	{
+		CsrGraph g = graph();
+		String file = dir.resolve("g.snap").toString();
+		GraphSnapshot.save(g, file);
+		CsrGraph h = GraphSnapshot.load(file);
+		assertEquals(g.vertexCount(), h.vertexCount());
+		assertEquals(g.edgeCount(), h.edgeCount());
+		ShortestPathTree expected = g.weighted(0);
+		ShortestPathTree actual = h.weighted(0);
+		for (int v = 0; v < g.vertexCount(); v++)
+			assertEquals(expected.distance(v), actual.distance(v));
+	}
+
+	@Test
+	void truncatedSnapshotIsRejected() throws IOException
+	{
+		String file = dir.resolve("g.snap").toString();
+		GraphSnapshot.save(graph(), file);
+		try (FileChannel ch = FileChannel.open(Path.of(file), StandardOpenOption.WRITE)) {
+			ch.truncate(ch.size() / 2);
+		}
+		assertThrows(GraphException.class, () -> GraphSnapshot.load(file));
+	}
+
+	// The ends of the offset arrays are checked on every load, without
+	// reading the rest of the file
+	@Test
+	void badOffsetEndIsRejected() throws IOException
+	{
+		CsrGraph g = graph();
+		String file = dir.resolve("g.snap").toString();
+		GraphSnapshot.save(g, file);
+		// ***last entry of the edge offsets
+		long at = align(32 + 4L * (g.vertexCount() + 1));
+		at = align(at + g.names().byteLength());
+		at += 4L * g.vertexCount();
+		try (FileChannel ch = FileChannel.open(Path.of(file), StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			b.putInt(0, g.edgeCount() + 1);
+			ch.write(b, at);
+		}
+		assertThrows(GraphException.class, () -> GraphSnapshot.load(file));
+	}
+
+	// A target out of range is found by the full check of load(file, true)
+	@Test
+	void edgeToNoVertexIsRejected() throws IOException
+	{
+		CsrGraph g = graph();
+		String file = dir.resolve("g.snap").toString();
+		GraphSnapshot.save(g, file);
+		// ***first entry of the targets section, after the header, the name
+		// ***offsets, the names and the edge offsets
+		long nameBytes = g.names().byteLength();
+		long at = align(32 + 4L * (g.vertexCount() + 1));
+		at = align(at + nameBytes);
+		at = align(at + 4L * (g.vertexCount() + 1));
+		try (FileChannel ch = FileChannel.open(Path.of(file), StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			b.putInt(0, g.vertexCount() + 5);
+			ch.write(b, at);
+		}
+		assertThrows(GraphException.class, () -> GraphSnapshot.load(file, true));
+		GraphSnapshot.load(file);   // ***found only when verifying
+	}
+}
@@ -0,0 +1,216 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Every search must find the distances plain Dijkstra (CsrGraph.shortestPath)
+// finds, on generated graphs of each kind. Paths may differ where several are
+// equally short, so only distances and reachability are compared.
+class SearchEquivalenceTest
+{
+	private static final int VERTICES = 400;
+	private static final int QUERIES = 60;
+
+	@TempDir
+	Path dir;
+
+	private String generate(String kind, long seed) throws IOException
+	{
+		String file = dir.resolve(kind + "-" + seed + ".txt").toString();
+		GraphGenerator.write(kind, VERTICES, seed, file);
+		return file;
+	}
+
+	private static CsrGraph load(String file) throws IOException
+	{
+		return GraphLoader.load(file, ForkJoinPool.commonPool());
+	}
+
+	// Same reachability and distance as Dijkstra, up to float rounding of
+	// sums taken in another order
+	private static void assertSame(ShortestPathResult expected, ShortestPathResult actual)
+	{
+		String query = expected.getSource() + " -> " + expected.getTarget();
+		assertEquals(expected.isReachable(), actual.isReachable(), query);
+		if (expected.isReachable())
+			assertEquals(expected.getDistance(), actual.getDistance(),
+					1e-4f * Math.max(1, expected.getDistance()), query);
+	}
+
+	@Test
+	void bidirectionalMatchesDijkstra() throws IOException
+	{
+		for (String kind : GraphGenerator.KINDS) {
+			CsrGraph g = load(generate(kind, 1));
+			Random r = new Random(2);
+			for (int q = 0; q < QUERIES; q++) {
+				int s = r.nextInt(g.vertexCount());
+				int t = r.nextInt(g.vertexCount());
+				assertSame(g.shortestPath(s, t), g.bidirectional(s, t));
+			}
+		}
+	}
+
+	@Test
+	void landmarkAstarMatchesDijkstra() throws IOException
+	{
+		for (String kind : GraphGenerator.KINDS) {
+			CsrGraph g = load(generate(kind, 3));
+			Heuristic h = new LandmarkHeuristic(g);
+			Random r = new Random(4);
+			for (int q = 0; q < QUERIES; q++) {
+				int s = r.nextInt(g.vertexCount());
+				int t = r.nextInt(g.vertexCount());
+				assertSame(g.shortestPath(s, t), g.astar(s, t, h));
+			}
+		}
+	}
+
+	// a is close to s and far from t in a straight line, but u, which has no
+	// coordinates, links it to t by a short detour: scaling by the edges
+	// with known lengths alone would overestimate at a and miss that path
+	@Test
+	void coordinateAstarWithPartialCoordinatesMatchesDijkstra() throws IOException
+	{
+		Path file = dir.resolve("partial.txt");
+		Files.write(file, "s t 100\ns a 0.5\na u 1\nu t 1\n".getBytes());
+		CsrGraph g = load(file.toString());
+		Map<String, double[]> coordinates = new HashMap<String, double[]>();
+		coordinates.put("s", new double[] { 0, 0 });
+		coordinates.put("a", new double[] { 0, 0.5 });
+		coordinates.put("t", new double[] { 100, 0 });
+		for (boolean haversine : new boolean[] { false, true }) {
+			Heuristic h = new CoordinateHeuristic(g, coordinates, haversine);
+			for (int s = 0; s < g.vertexCount(); s++) {
+				for (int t = 0; t < g.vertexCount(); t++)
+					assertSame(g.shortestPath(s, t), g.astar(s, t, h));
+			}
+		}
+	}
+
+	@Test
+	void contractionHierarchyMatchesDijkstra() throws IOException
+	{
+		for (String kind : GraphGenerator.KINDS) {
+			CsrGraph g = load(generate(kind, 5));
+			ContractionHierarchy ch = new ContractionHierarchy(g);
+			Random r = new Random(6);
+			for (int q = 0; q < QUERIES; q++) {
+				int s = r.nextInt(g.vertexCount());
+				int t = r.nextInt(g.vertexCount());
+				assertSame(g.shortestPath(s, t), ch.query(s, t));
+			}
+		}
+	}
+
+	// With the mean edge weight as bucket width, and with one so narrow that
+	// the bucket ring has to be widened to fit the heaviest edge
+	@Test
+	void deltaSteppingMatchesDijkstra() throws IOException
+	{
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (DeltaStepping delta : new DeltaStepping[] { new DeltaStepping(pool),
+				new DeltaStepping(pool, 1e-6f) }) {
+			for (String kind : GraphGenerator.KINDS) {
+				CsrGraph g = load(generate(kind, 7));
+				for (int s = 0; s < g.vertexCount(); s += g.vertexCount() / 8) {
+					ShortestPathTree expected = g.weighted(s);
+					ShortestPathTree actual = delta.tree(g, s);
+					for (int v = 0; v < g.vertexCount(); v++)
+						assertEquals(expected.distance(v), actual.distance(v), 0f,
+								g.name(s) + " -> " + g.name(v));
+				}
+			}
+		}
+	}
+
+	@Test
+	void deltaSteppingRejectsNonPositiveWidths()
+	{
+		for (float width : new float[] { 0, -1, Float.NaN })
+			assertThrows(GraphException.class,
+					() -> new DeltaStepping(ForkJoinPool.commonPool(), width));
+	}
+
+	@Test
+	void reorderedSnapshotMatchesDijkstra() throws IOException
+	{
+		for (String method : VertexOrder.METHODS) {
+			if (method.equals("hilbert"))
+				continue;   // needs coordinates
+			CsrGraph g = load(generate("road", 8));
+			CsrGraph relabeled = VertexOrder.apply(g, method, null, null);
+			Random r = new Random(9);
+			for (int q = 0; q < QUERIES; q++) {
+				String s = g.name(r.nextInt(g.vertexCount()));
+				String t = g.name(r.nextInt(g.vertexCount()));
+				int rs = relabeled.indexOf(s);
+				int rt = relabeled.indexOf(t);
+				assertSame(g.shortestPath(g.indexOf(s), g.indexOf(t)),
+						relabeled.shortestPath(rs, rt));
+				assertSame(g.shortestPath(g.indexOf(s), g.indexOf(t)),
+						relabeled.bidirectional(rs, rt));
+			}
+		}
+	}
+
+	// Hot trees and the tree cache through the Graph, checked against
+	// Dijkstra on the snapshot after every change
+	@Test
+	void hotTreesAndTreeCacheFollowChanges() throws IOException
+	{
+		String file = generate("road", 10);
+		PrintWriter out = new PrintWriter(new StringWriter());
+		for (int mode = 0; mode < 2; mode++) {
+			Graph g = new Graph();
+			g.load(file);
+			if (mode == 0)
+				g.setTreeCache(8);
+			CsrGraph first = g.snapshot();
+			String[] sources = new String[4];
+			for (int i = 0; i < sources.length; i++) {
+				sources[i] = first.name(i * first.vertexCount() / sources.length);
+				if (mode == 1)
+					g.addHotSource(sources[i], out);
+			}
+			Random r = new Random(11);
+			for (int step = 0; step < 40; step++) {
+				String a = first.name(r.nextInt(first.vertexCount()));
+				String b = first.name(r.nextInt(first.vertexCount()));
+				switch (step % 4) {
+				case 0:
+					g.addedge(a, b, 1f + r.nextInt(20));
+					break;
+				case 1:
+					g.vertexdown(a, out);
+					break;
+				case 2:
+					g.vertexup(a, out);
+					break;
+				default:
+					g.deleteedge(a, b, out);
+					break;
+				}
+				CsrGraph csr = g.snapshot();
+				for (String s : sources) {
+					String t = first.name(r.nextInt(first.vertexCount()));
+					ShortestPathResult actual = g.shortestPath(s, t);
+					if (csr.isVertexDown(csr.indexOf(s)))
+						continue;
+					assertSame(csr.shortestPath(csr.indexOf(s), csr.indexOf(t)), actual);
+				}
+			}
+		}
+	}
+}
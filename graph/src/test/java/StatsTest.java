@@ -0,0 +1,60 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatsTest
+{
+	@TempDir
+	Path dir;
+
+	private static String print()
+	{
+		StringWriter s = new StringWriter();
+		PrintWriter out = new PrintWriter(s);
+		Stats.print(out);
+		out.flush();
+		return s.toString();
+	}
+
+	// Hierarchy witness searches and landmark distances are preprocessing;
+	// only the queries after them count as searches
+	@Test
+	void preprocessingIsNotCountedAsSearches() throws IOException
+	{
+		String file = dir.resolve("road.txt").toString();
+		GraphGenerator.write("road", 400, 1, file);
+		CsrGraph g = GraphLoader.load(file, ForkJoinPool.commonPool());
+		Stats.reset();
+		ContractionHierarchy ch = new ContractionHierarchy(g);
+		Heuristic h = new LandmarkHeuristic(g);
+		assertTrue(print().startsWith("Searches 0:"), print());
+		ch.query(0, g.vertexCount() - 1);
+		g.astar(0, g.vertexCount() - 1, h);
+		assertTrue(print().startsWith("Searches 3:"), print());
+	}
+
+	// Every change repairs the hot trees once and records what it touched
+	@Test
+	void everyHotTreeUpdateIsRecorded() throws IOException
+	{
+		Path file = dir.resolve("g.txt");
+		Files.write(file, "a b 1\nb c 2\nc d 3\na d 10\n".getBytes());
+		Graph g = new Graph();
+		g.load(file.toString());
+		PrintWriter out = new PrintWriter(new StringWriter());
+		g.addHotSource("a", out);
+		Stats.reset();
+		g.edgedown("b", "c", out);
+		g.edgeup("b", "c", out);
+		g.vertexdown("c", out);
+		assertTrue(print().contains("Hot tree updates 3: "), print());
+	}
+}